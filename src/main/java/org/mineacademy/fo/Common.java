@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -106,9 +107,19 @@ public final class Common {
 	private static final Pattern RGB_X_COLOR_REGEX = Pattern.compile("(" + COLOR_CHAR + "x)(" + COLOR_CHAR + "[0-9a-fA-F]){6}");
 
 	/**
-	 * High performance regular expression matcher for colors, used in {@link #stripColors(String)}
+	 * How many translated or stripped messages we keep before we start over
 	 */
-	private static final Pattern ALL_IN_ONE = Pattern.compile("((&|" + COLOR_CHAR + ")[0-9a-fk-or])|(" + COLOR_CHAR + "x(" + COLOR_CHAR + "[0-9a-fA-F]){6})|((?<!\\\\)(\\{|&|)#((?:[0-9a-fA-F]{3}){2})(\\}|))");
+	private static final int COLOR_CACHE_LIMIT = 2000;
+
+	/**
+	 * Message with & and hex colors - Message with {@link ChatColor#COLOR_CHAR} colors
+	 */
+	private static final Map<String, String> COLORIZE_CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * Colored message - Message without colors
+	 */
+	private static final Map<String, String> STRIP_CACHE = new ConcurrentHashMap<>();
 
 	/**
 	 * Used to send messages to player without repetition, e.g. if they attempt to break a block
@@ -597,29 +608,76 @@ public final class Common {
 		if (message == null || message.isEmpty())
 			return "";
 
-		String result = CompChatColor.translateColorCodes(message
-				.replace("{prefix}", message.startsWith(tellPrefix) ? "" : tellPrefix)
-				.replace("{server}", SimpleLocalization.SERVER_PREFIX)
-				.replace("{plugin_name}", SimplePlugin.getNamed())
-				.replace("{plugin_version}", SimplePlugin.getVersion()));
+		String result = message;
 
-		// Replace hex colors on 1.16+ or find the closest color for legacy versions
-		final Matcher match = HEX_COLOR_REGEX.matcher(result);
+		if (result.indexOf('{') != -1)
+			result = result
+					.replace("{prefix}", message.startsWith(tellPrefix) ? "" : tellPrefix)
+					.replace("{server}", SimpleLocalization.SERVER_PREFIX)
+					.replace("{plugin_name}", SimplePlugin.getNamed())
+					.replace("{plugin_version}", SimplePlugin.getVersion());
 
-		while (match.find()) {
-			final String matched = match.group();
-			final String colorCode = match.group(2);
-			String replacement = "";
+		String colorized = COLORIZE_CACHE.get(result);
 
-			try {
-				replacement = CompChatColor.of("#" + colorCode).toString();
+		if (colorized == null) {
+			colorized = translateColors0(result);
+
+			if (COLORIZE_CACHE.size() >= COLOR_CACHE_LIMIT)
+				COLORIZE_CACHE.clear();
+
+			COLORIZE_CACHE.put(result, colorized);
+		}
+
+		return colorized;
+	}
+
+	/*
+	 * Translates & colors as well as {#CCCCCC}, &#CCCCCC and #CCCCCC hex colors
+	 * in one pass over the message, see {@link #HEX_COLOR_REGEX}
+	 */
+	private static String translateColors0(final String message) {
+		final int length = message.length();
+		final StringBuilder builder = new StringBuilder(length + 16);
+
+		for (int index = 0; index < length; index++) {
+			final char letter = message.charAt(index);
+
+			// Hex colors, unless escaped with a backslash
+			if ((letter == '{' || letter == '&' || letter == '#') && (index == 0 || message.charAt(index - 1) != '\\')) {
+				final int hashIndex = letter == '#' ? index : index + 1;
+
+				if (isHexColor0(message, hashIndex)) {
+					String replacement = "";
 
-			} catch (final IllegalArgumentException ex) {
+					try {
+						replacement = CompChatColor.of(message.substring(hashIndex, hashIndex + 7)).toString();
+
+					} catch (final IllegalArgumentException ex) {
+					}
+
+					builder.append(replacement);
+
+					index = hashIndex + 6;
+
+					if (index + 1 < length && message.charAt(index + 1) == '}')
+						index++;
+
+					continue;
+				}
+			}
+
+			// & colors
+			if (letter == '&' && index + 1 < length && "0123456789AaBbCcDdEeFfKkLlMmNnOoRrXx".indexOf(message.charAt(index + 1)) > -1) {
+				builder.append(COLOR_CHAR).append(Character.toLowerCase(message.charAt(++index)));
+
+				continue;
 			}
 
-			result = result.replaceAll(Pattern.quote(matched), replacement);
+			builder.append(letter);
 		}
 
+		String result = builder.toString();
+
 		if (result.contains("\\\\#"))
 			result = result.replace("\\\\#", "\\#");
 
@@ -629,6 +687,20 @@ public final class Common {
 		return result;
 	}
 
+	/*
+	 * Return true if there is # followed by 6 hex digits at the given index
+	 */
+	private static boolean isHexColor0(final String message, final int hashIndex) {
+		if (hashIndex + 7 > message.length() || message.charAt(hashIndex) != '#')
+			return false;
+
+		for (int index = hashIndex + 1; index < hashIndex + 7; index++)
+			if (Character.digit(message.charAt(index), 16) == -1)
+				return false;
+
+		return true;
+	}
+
 	/**
 	 * Replaces the {@link ChatColor#COLOR_CHAR} colors with & letters
 	 *
@@ -649,7 +721,16 @@ public final class Common {
 	 * @return
 	 */
 	public static String revertColorizing(final String message) {
-		return message.replaceAll("(?i)" + ChatColor.COLOR_CHAR + "([0-9a-fk-or])", "&$1");
+		if (message.indexOf(COLOR_CHAR) == -1)
+			return message;
+
+		final char[] letters = message.toCharArray();
+
+		for (int index = 0; index < letters.length - 1; index++)
+			if (letters[index] == COLOR_CHAR && "0123456789AaBbCcDdEeFfKkLlMmNnOoRr".indexOf(letters[index + 1]) > -1)
+				letters[index] = '&';
+
+		return new String(letters);
 	}
 
 	/**
@@ -662,28 +743,80 @@ public final class Common {
 		if (message == null || message.isEmpty())
 			return message;
 
-		// Replace & color codes
-		final Matcher matcher = ALL_IN_ONE.matcher(message);
+		if (message.indexOf(COLOR_CHAR) == -1 && message.indexOf('&') == -1 && message.indexOf('#') == -1)
+			return message;
+
+		String stripped = STRIP_CACHE.get(message);
+
+		if (stripped == null) {
+			stripped = stripColors0(message);
+
+			if (STRIP_CACHE.size() >= COLOR_CACHE_LIMIT)
+				STRIP_CACHE.clear();
 
-		while (matcher.find())
-			message = matcher.replaceAll("");
+			STRIP_CACHE.put(message, stripped);
+		}
 
-		// Replace hex colors, both raw and parsed
-		/*if (Remain.hasHexColors()) {
-			matcher = HEX_COLOR_REGEX.matcher(message);
+		return stripped;
+	}
 
-			while (matcher.find())
-				message = matcher.replaceAll("");
+	/*
+	 * Removes & and {@link ChatColor#COLOR_CHAR} colors, {@link ChatColor#COLOR_CHAR}x hex colors
+	 * as well as raw hex colors in one pass over the message
+	 */
+	private static String stripColors0(final String message) {
+		final int length = message.length();
+		final StringBuilder builder = new StringBuilder(length);
 
-			matcher = RGB_X_COLOR_REGEX.matcher(message);
+		for (int index = 0; index < length; index++) {
+			final char letter = message.charAt(index);
 
-			while (matcher.find())
-				message = matcher.replaceAll("");
+			// & and section colors
+			if ((letter == '&' || letter == COLOR_CHAR) && index + 1 < length && "0123456789abcdefklmnor".indexOf(message.charAt(index + 1)) > -1) {
+				index++;
 
-			message = message.replace(ChatColor.COLOR_CHAR + "x", "");
-		}*/
+				continue;
+			}
 
-		return message;
+			// Parsed hex colors
+			if (letter == COLOR_CHAR && isParsedHexColor0(message, index)) {
+				index += 13;
+
+				continue;
+			}
+
+			// Raw hex colors, unless escaped with a backslash
+			if ((letter == '{' || letter == '&' || letter == '#') && (index == 0 || message.charAt(index - 1) != '\\')) {
+				final int hashIndex = letter == '#' ? index : index + 1;
+
+				if (isHexColor0(message, hashIndex)) {
+					index = hashIndex + 6;
+
+					if (index + 1 < length && message.charAt(index + 1) == '}')
+						index++;
+
+					continue;
+				}
+			}
+
+			builder.append(letter);
+		}
+
+		return builder.toString();
+	}
+
+	/*
+	 * Return true if there is a parsed hex color such as §x§a§b§c§d§e§f at the given index
+	 */
+	private static boolean isParsedHexColor0(final String message, final int index) {
+		if (index + 14 > message.length() || message.charAt(index + 1) != 'x')
+			return false;
+
+		for (int position = index + 2; position < index + 14; position += 2)
+			if (message.charAt(position) != COLOR_CHAR || Character.digit(message.charAt(position + 1), 16) == -1)
+				return false;
+
+		return true;
 	}
 
 	/**
@@ -3087,4 +3220,4 @@ public final class Common {
 			return new TimedCharSequence(message, System.currentTimeMillis() + SimpleSettings.REGEX_TIMEOUT);
 		}
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,271 @@
+package org.mineacademy.fo.annotation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes an index of classes Foundation registers automatically into your plugin's JAR
+ * at compile time, so that we only load the indexed classes when your plugin starts
+ * instead of every class in the JAR, including shaded libraries.
+ *
+ * Indexed are classes using {@link AutoRegister} and classes extending the types which
+ * register themselves (Tool, SimpleEnchantment, BungeeListener, SimpleExpansion,
+ * PacketListener, DiscordListener and YamlStaticConfig).
+ *
+ * The processor is not discovered from the Foundation JAR on your classpath, so shading
+ * Foundation never pulls it into your plugin. Enable it explicitly in maven-compiler-plugin
+ * by adding Foundation and Lombok to annotationProcessorPaths and listing this class and
+ * lombok.launch.AnnotationProcessorHider$AnnotationProcessor in annotationProcessors.
+ *
+ * One index file is written per compiled package, listing all of its top level classes
+ * and those to register. Incremental builds merge into the existing files. When the index
+ * does not cover every class of your plugin, we fall back to scanning the whole JAR.
+ */
+@SupportedAnnotationTypes("*")
+public final class AutoRegisterProcessor extends AbstractProcessor {
+
+	/**
+	 * The folder in the JAR containing one index file per package, named after the package
+	 * or "default" for the default package
+	 */
+	public static final String INDEX_FOLDER = "META-INF/foundation/autoregister/";
+
+	/**
+	 * The line prefix in index files for each top level class compiled in the package
+	 */
+	public static final String CLASS_PREFIX = "class ";
+
+	/**
+	 * The line prefix in index files for each class to register automatically
+	 */
+	public static final String REGISTER_PREFIX = "register ";
+
+	/**
+	 * Classes which register themselves even without {@link AutoRegister}
+	 */
+	private static final String[] SELF_REGISTERING_TYPES = {
+			"org.mineacademy.fo.menu.tool.Tool",
+			"org.mineacademy.fo.enchant.SimpleEnchantment",
+			"org.mineacademy.fo.bungee.BungeeListener",
+			"org.mineacademy.fo.model.SimpleExpansion",
+			"org.mineacademy.fo.model.PacketListener",
+			"org.mineacademy.fo.model.DiscordListener",
+			"org.mineacademy.fo.settings.YamlStaticConfig"
+	};
+
+	/**
+	 * The binary names of top level classes compiled in each package
+	 */
+	private final Map<String, Set<String>> compiledClasses = new TreeMap<>();
+
+	/**
+	 * The binary names of classes to register automatically in each package
+	 */
+	private final Map<String, Set<String>> indexedClasses = new TreeMap<>();
+
+	/**
+	 * The resolved {@link #SELF_REGISTERING_TYPES} available on the classpath
+	 */
+	private final List<TypeMirror> selfRegisteringTypes = new ArrayList<>();
+
+	/**
+	 * The Bukkit event handler annotation, or null if Bukkit is not on the classpath
+	 */
+	private TypeElement eventHandlerType;
+
+	/**
+	 * The Bukkit listener interface, or null if Bukkit is not on the classpath
+	 */
+	private TypeMirror listenerType;
+
+	@Override
+	public synchronized void init(ProcessingEnvironment processingEnv) {
+		super.init(processingEnv);
+
+		final Elements elements = processingEnv.getElementUtils();
+		final Types types = processingEnv.getTypeUtils();
+
+		for (final String typeName : SELF_REGISTERING_TYPES) {
+			final TypeElement type = elements.getTypeElement(typeName);
+
+			if (type != null)
+				this.selfRegisteringTypes.add(types.erasure(type.asType()));
+		}
+
+		final TypeElement listener = elements.getTypeElement("org.bukkit.event.Listener");
+
+		this.eventHandlerType = elements.getTypeElement("org.bukkit.event.EventHandler");
+		this.listenerType = listener != null ? listener.asType() : null;
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		final Elements elements = this.processingEnv.getElementUtils();
+
+		for (final Element element : roundEnv.getRootElements())
+			if (element instanceof TypeElement) {
+				final TypeElement type = (TypeElement) element;
+				final String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+
+				this.compiledClasses.computeIfAbsent(packageName, key -> new TreeSet<>()).add(elements.getBinaryName(type).toString());
+				this.indexedClasses.computeIfAbsent(packageName, key -> new TreeSet<>());
+
+				this.scan(type, packageName);
+			}
+
+		if (roundEnv.processingOver())
+			for (final String packageName : this.compiledClasses.keySet())
+				this.writeIndex(packageName);
+
+		// Do not claim any annotations, other processors such as Lombok need them
+		return false;
+	}
+
+	/*
+	 * Index the given class and its nested classes if they can be registered automatically
+	 */
+	private void scan(TypeElement type, String packageName) {
+		if (type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.ABSTRACT) && this.isAutoRegistered(type))
+			this.indexedClasses.get(packageName).add(this.processingEnv.getElementUtils().getBinaryName(type).toString());
+
+		if (type.getKind() == ElementKind.CLASS)
+			this.checkEventHandlers(type);
+
+		for (final Element enclosed : type.getEnclosedElements())
+			if (enclosed instanceof TypeElement)
+				this.scan((TypeElement) enclosed, packageName);
+	}
+
+	/*
+	 * Return true if the class uses our annotation or extends a self registering type
+	 */
+	private boolean isAutoRegistered(TypeElement type) {
+		if (type.getAnnotation(AutoRegister.class) != null)
+			return true;
+
+		final Types types = this.processingEnv.getTypeUtils();
+		final TypeMirror erasure = types.erasure(type.asType());
+
+		for (final TypeMirror selfRegistering : this.selfRegisteringTypes)
+			if (types.isSubtype(erasure, selfRegistering))
+				return true;
+
+		return false;
+	}
+
+	/*
+	 * Warn about a common mistake of using @EventHandler without implementing Listener,
+	 * since we no longer reflect over every class at runtime to catch it
+	 */
+	private void checkEventHandlers(TypeElement type) {
+		if (this.eventHandlerType == null || this.listenerType == null)
+			return;
+
+		final Types types = this.processingEnv.getTypeUtils();
+
+		if (types.isAssignable(type.asType(), this.listenerType))
+			return;
+
+		for (final Element enclosed : type.getEnclosedElements())
+			if (enclosed.getKind() == ElementKind.METHOD)
+				for (final AnnotationMirror annotation : enclosed.getAnnotationMirrors())
+					if (types.isSameType(annotation.getAnnotationType(), this.eventHandlerType.asType())) {
+						this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+								"Detected @EventHandler in " + type.getQualifiedName() + ", make this class 'implements Listener' before using events there", enclosed);
+
+						return;
+					}
+	}
+
+	/*
+	 * Write the index file of the given package, keeping entries of classes
+	 * from an earlier build which were not compiled this time
+	 */
+	private void writeIndex(String packageName) {
+		final Filer filer = this.processingEnv.getFiler();
+		final String path = INDEX_FOLDER + (packageName.isEmpty() ? "default" : packageName);
+
+		final Set<String> compiled = this.compiledClasses.get(packageName);
+		final Set<String> classes = new TreeSet<>(compiled);
+		final Set<String> registered = new TreeSet<>(this.indexedClasses.get(packageName));
+
+		try {
+			final FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", path);
+
+			try (Reader reader = existing.openReader(true)) {
+				final BufferedReader lines = new BufferedReader(reader);
+				String line;
+
+				while ((line = lines.readLine()) != null)
+					if (line.startsWith(CLASS_PREFIX) && !compiled.contains(line.substring(CLASS_PREFIX.length())))
+						classes.add(line.substring(CLASS_PREFIX.length()));
+
+					else if (line.startsWith(REGISTER_PREFIX) && !compiled.contains(getTopLevelName(line.substring(REGISTER_PREFIX.length()))))
+						registered.add(line.substring(REGISTER_PREFIX.length()));
+			}
+
+		} catch (final IOException | IllegalArgumentException ex) {
+			// No index from an earlier build
+		}
+
+		try {
+			final FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", path);
+
+			try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+				for (final String className : classes)
+					writer.write(CLASS_PREFIX + className + "\n");
+
+				for (final String className : registered)
+					writer.write(REGISTER_PREFIX + className + "\n");
+			}
+
+		} catch (final IOException ex) {
+			this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Failed to write auto register index " + path + ", Foundation will scan the whole JAR: " + ex);
+		}
+	}
+
+	/**
+	 * Return the binary name of the top level class of the given binary class name
+	 *
+	 * @param className
+	 * @return
+	 */
+	public static String getTopLevelName(String className) {
+		final int nested = className.indexOf('$', className.lastIndexOf('.') + 1);
+
+		return nested == -1 ? className : className.substring(0, nested);
+	}
+}
\ No newline at end of file
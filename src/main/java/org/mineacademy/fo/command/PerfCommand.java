@@ -0,0 +1,155 @@
+package org.mineacademy.fo.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.command.CommandSender;
+import org.mineacademy.fo.Common;
+import org.mineacademy.fo.FileUtil;
+import org.mineacademy.fo.MathUtil;
+import org.mineacademy.fo.TimeUtil;
+import org.mineacademy.fo.debug.LagCatcher;
+import org.mineacademy.fo.model.SimpleTask;
+import org.mineacademy.fo.plugin.SimplePlugin;
+
+/**
+ * A simple predefined sub-command for profiling sections measured
+ * by {@link LagCatcher} using /{label} perf|profiler
+ *
+ * Start a window with "start [seconds]", then use "report" to
+ * print the slowest sections or "save" to write all of them to a file.
+ */
+public final class PerfCommand extends SimpleSubCommand {
+
+	/**
+	 * How many sections to show in chat
+	 */
+	private static final int REPORT_SIZE = 10;
+
+	/**
+	 * The task stopping the profiling window, if it was started with a duration
+	 */
+	private static SimpleTask stopTask;
+
+	/**
+	 * Create a new perf sub-command with the given permission.
+	 *
+	 * @param permission
+	 */
+	public PerfCommand(String permission) {
+		this();
+
+		this.setPermission(permission);
+	}
+
+	/**
+	 * Create a new perf sub-command
+	 */
+	public PerfCommand() {
+		super("perf|profiler");
+
+		this.setDescription("Profile which plugin features take the most time.");
+		this.setUsage("<start [seconds]|stop|report|save>");
+		this.setMinArguments(1);
+	}
+
+	@Override
+	protected void onCommand() {
+		final String param = this.args[0].toLowerCase();
+
+		if ("start".equals(param)) {
+			this.checkBoolean(!LagCatcher.isProfiling(), "Profiling is already running, use '/{label} {sublabel} stop' first.");
+
+			final int seconds = this.args.length > 1 ? this.findNumber(1, 1, 3600, "Duration must be from 1 to 3600 seconds.") : 0;
+
+			LagCatcher.startProfiling();
+
+			if (seconds > 0) {
+				final CommandSender sender = this.sender;
+
+				stopTask = Common.runLater(seconds * 20, () -> {
+					stopTask = null;
+
+					LagCatcher.stopProfiling();
+					Common.tell(sender, compileReport());
+				});
+			}
+
+			this.tellSuccess("Profiling started" + (seconds > 0 ? " for " + TimeUtil.formatTimeGeneric(seconds) : "") + ". Use '/{label} {sublabel} stop' to see the report.");
+		}
+
+		else if ("stop".equals(param)) {
+			this.checkBoolean(LagCatcher.isProfiling(), "Profiling is not running, use '/{label} {sublabel} start' first.");
+
+			if (stopTask != null) {
+				stopTask.cancel();
+
+				stopTask = null;
+			}
+
+			LagCatcher.stopProfiling();
+			this.tell(compileReport());
+		}
+
+		else if ("report".equals(param))
+			this.tell(compileReport());
+
+		else if ("save".equals(param)) {
+			final String path = "perf/report-" + System.currentTimeMillis() + ".txt";
+			final List<String> lines = new ArrayList<>();
+
+			lines.add("Profiling report generated " + TimeUtil.getFormattedDate() + " for " + SimplePlugin.getInstance().getDescription().getFullName());
+			lines.add("Window: " + MathUtil.formatTwoDigits(LagCatcher.getProfilingDurationMillis() / 1000D) + " seconds" + (LagCatcher.isProfiling() ? " (still running)" : ""));
+			lines.add("");
+			lines.addAll(LagCatcher.dumpStatistics());
+
+			FileUtil.write(path, lines);
+			this.tellSuccess("Wrote " + Common.plural(lines.size() - 3, "section") + " to " + path + ".");
+		}
+
+		else
+			this.returnInvalidArgs();
+	}
+
+	/*
+	 * Compile the slowest sections ranked by their total time
+	 */
+	private static List<String> compileReport() {
+		final List<Map.Entry<String, LagCatcher.Statistics>> ranked = LagCatcher.getRankedStatistics();
+		final List<String> lines = new ArrayList<>();
+
+		final double windowMillis = LagCatcher.getProfilingDurationMillis();
+
+		lines.add("&7Profiled &f" + MathUtil.formatTwoDigits(windowMillis / 1000D) + "s" + (LagCatcher.isProfiling() ? " (running)" : "") + "&7, " + Common.plural(ranked.size(), "section") + " measured:");
+
+		if (ranked.isEmpty())
+			lines.add("&7Nothing was measured in this window.");
+
+		for (int i = 0; i < ranked.size() && i < REPORT_SIZE; i++) {
+			final String section = ranked.get(i).getKey();
+			final LagCatcher.Statistics statistics = ranked.get(i).getValue();
+
+			lines.add("&8" + (i + 1) + ". &f" + section
+					+ " &7x" + statistics.getCount()
+					+ " total &f" + MathUtil.formatTwoDigits(statistics.getTotalMillis()) + "ms"
+					+ (windowMillis > 0 ? " &7(" + MathUtil.formatTwoDigits(statistics.getTotalMillis() * 100 / windowMillis) + "% of window)" : "")
+					+ " &7avg &f" + MathUtil.formatTwoDigits(statistics.getAverageMillis()) + "ms"
+					+ " &7p99 &f" + MathUtil.formatTwoDigits(statistics.getPercentileMillis(99)) + "ms"
+					+ " &7main thread &f" + Math.round(statistics.getMainThreadShare() * 100) + "%");
+		}
+
+		return lines;
+	}
+
+	/**
+	 * @see org.mineacademy.fo.command.SimpleCommand#tabComplete()
+	 */
+	@Override
+	protected List<String> tabComplete() {
+		if (this.args.length == 1)
+			return this.completeLastWord("start", "stop", "report", "save");
+
+		return NO_COMPLETE;
+	}
+}
@@ -4,6 +4,7 @@ import java.util.UUID;
 
 import org.bukkit.entity.Player;
 import org.mineacademy.fo.menu.Menu;
+import org.mineacademy.fo.menu.tool.Tool;
 import org.mineacademy.fo.plugin.SimplePlugin;
 
 /**
@@ -145,5 +146,13 @@ public final class FoConstants {
 		 * We use this in the sign update packet listener to handle sign updating.
 		 */
 		public static final String METADATA_OPENED_SIGN = SimplePlugin.getNamed() + "_OpenedSign";
+
+		/**
+		 * An internal metadata tag storing the tool id on items given to players.
+		 *
+		 * <p>
+		 * Used in {@link Tool#getTaggedItem()}
+		 */
+		public static final String TAG_TOOL = SimplePlugin.getNamed() + "_Tool";
 	}
 }
@@ -6,6 +6,7 @@ import java.sql.Array;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.Ref;
 import java.sql.ResultSet;
 import java.sql.RowId;
@@ -14,13 +15,20 @@ import java.sql.SQLSyntaxErrorException;
 import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
 
+import javax.sql.DataSource;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
+
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.Nullable;
 import org.mineacademy.fo.Common;
@@ -66,6 +74,20 @@ public class SimpleDatabase {
 	@Setter
 	private static boolean connectUsingHikari = true;
 
+	/**
+	 * Should each query borrow its own connection from the HikariCP pool instead of
+	 * locking and sharing the single connection? Only takes effect when connected using Hikari.
+	 * <p>
+	 * When enabled, {@link #query(String)} returns a disconnected, fully read result set
+	 * so that the borrowed connection can be returned to the pool right away.
+	 * <p>
+	 * Set this before connecting, the driver is only told to cache prepared
+	 * statements when this is enabled at the time of connecting.
+	 */
+	@Getter
+	@Setter
+	private static boolean usePooledConnections = false;
+
 	/**
 	 * The established connection, or null if none
 	 */
@@ -97,6 +119,31 @@ public class SimpleDatabase {
 	 */
 	private boolean isSQLite = false;
 
+	/*
+	 * Prepared statements for the main connection cached by their SQL, only accessed while
+	 * the connection is locked. Pooled connections rely on the driver's own statement cache.
+	 */
+	private final Map<String, PreparedStatement> statementCache = new LinkedHashMap<String, PreparedStatement>(16, 0.75F, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, PreparedStatement> eldest) {
+			if (this.size() > 64) {
+				closeStatement(eldest.getValue());
+
+				return true;
+			}
+
+			return false;
+		}
+	};
+
+	/*
+	 * The connection the statement cache belongs to, used to discard it after reconnecting
+	 */
+	private Connection statementCacheConnection;
+
 	// --------------------------------------------------------------------
 	// Connecting
 	// --------------------------------------------------------------------
@@ -242,6 +289,16 @@ public class SimpleDatabase {
 				if (password != null)
 					ReflectionUtil.invoke("setPassword", hikariConfig, password);
 
+				// Let the driver cache prepared statements on each pooled connection
+				final Method addProperty = ReflectionUtil.getMethod(hikariConfig.getClass(), "addDataSourceProperty", String.class, Object.class);
+
+				if (usePooledConnections && addProperty != null) {
+					ReflectionUtil.invoke(addProperty, hikariConfig, "cachePrepStmts", "true");
+					ReflectionUtil.invoke(addProperty, hikariConfig, "prepStmtCacheSize", "250");
+					ReflectionUtil.invoke(addProperty, hikariConfig, "prepStmtCacheSqlLimit", "2048");
+					ReflectionUtil.invoke(addProperty, hikariConfig, "useServerPrepStmts", "true");
+				}
+
 				final Constructor<?> dataSourceConst = ReflectionUtil.getConstructor("com.zaxxer.hikari.HikariDataSource", hikariConfig.getClass());
 				final Object hikariSource = ReflectionUtil.instantiate(dataSourceConst, hikariConfig);
 
@@ -331,6 +388,12 @@ public class SimpleDatabase {
 	protected void onConnected() {
 	}
 
+	/**
+	 * Called automatically in {@link #close()} before the connection is closed
+	 */
+	protected void onClose() {
+	}
+
 	// --------------------------------------------------------------------
 	// Disconnecting
 	// --------------------------------------------------------------------
@@ -354,9 +417,16 @@ public class SimpleDatabase {
 	 * Attempts to close the connection, if not null
 	 */
 	public final void close() {
+		this.onClose();
+
 		try {
+			// Wait for threads still using cached statements
 			if (this.connection != null)
-				this.connection.close();
+				synchronized (this.connection) {
+					this.clearStatementCache();
+
+					this.connection.close();
+				}
 
 			if (this.hikariDataSource != null)
 				ReflectionUtil.invoke("close", this.hikariDataSource);
@@ -376,57 +446,55 @@ public class SimpleDatabase {
 	 * @param creator
 	 */
 	protected final void createTable(final TableCreator creator) {
-		synchronized (this.connection) {
-			String columns = "";
-
-			for (final TableRow column : creator.getColumns()) {
-				String dataType = column.getDataType().toLowerCase();
+		String columns = "";
 
-				if (this.isSQLite) {
-					if (dataType.equals("datetime") || dataType.equals("longtext"))
-						dataType = "text";
+		for (final TableRow column : creator.getColumns()) {
+			String dataType = column.getDataType().toLowerCase();
 
-					else if (dataType.startsWith("varchar"))
-						dataType = "text";
+			if (this.isSQLite) {
+				if (dataType.equals("datetime") || dataType.equals("longtext"))
+					dataType = "text";
 
-					else if (dataType.startsWith("bigint"))
-						dataType = "integer";
+				else if (dataType.startsWith("varchar"))
+					dataType = "text";
 
-					else if (creator.getPrimaryColumn() != null && creator.getPrimaryColumn().equals(column.getName()))
-						dataType = "INTEGER PRIMARY KEY";
-				}
+				else if (dataType.startsWith("bigint"))
+					dataType = "integer";
 
-				columns += (columns.isEmpty() ? "" : ", ") + "`" + column.getName() + "` " + dataType;
+				else if (creator.getPrimaryColumn() != null && creator.getPrimaryColumn().equals(column.getName()))
+					dataType = "INTEGER PRIMARY KEY";
+			}
 
-				if (column.getAutoIncrement() != null && column.getAutoIncrement())
-					if (this.isSQLite)
-						columns += " AUTOINCREMENT";
+			columns += (columns.isEmpty() ? "" : ", ") + "`" + column.getName() + "` " + dataType;
 
-					else
-						columns += " NOT NULL AUTO_INCREMENT";
+			if (column.getAutoIncrement() != null && column.getAutoIncrement())
+				if (this.isSQLite)
+					columns += " AUTOINCREMENT";
 
-				else if (column.getNotNull() != null && column.getNotNull())
-					columns += " NOT NULL";
+				else
+					columns += " NOT NULL AUTO_INCREMENT";
 
-				if (column.getDefaultValue() != null)
-					columns += " DEFAULT " + column.getDefaultValue();
-			}
+			else if (column.getNotNull() != null && column.getNotNull())
+				columns += " NOT NULL";
 
-			if (creator.getPrimaryColumn() != null && !this.isSQLite)
-				columns += ", PRIMARY KEY (`" + creator.getPrimaryColumn() + "`)";
+			if (column.getDefaultValue() != null)
+				columns += " DEFAULT " + column.getDefaultValue();
+		}
 
-			try {
-				this.update("CREATE TABLE IF NOT EXISTS `" + creator.getName() + "` (" + columns + ") " + (this.isSQLite ? "" : "DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_520_ci") + ";");
+		if (creator.getPrimaryColumn() != null && !this.isSQLite)
+			columns += ", PRIMARY KEY (`" + creator.getPrimaryColumn() + "`)";
 
-			} catch (final Throwable t) {
-				if (t.toString().contains("Unknown collation")) {
-					Common.log("You need to update your database driver to support utf8mb4_unicode_520_ci collation. We switched to support unicode using 4 bits length because the previous system only supported 3 bits.");
-					Common.log("Some characters such as smiley or Chinese are stored in 4 bits so they would crash the 3-bit database leading to more problems. Most hosting providers have now widely adopted the utf8mb4_unicode_520_ci encoding you seem lacking. Disable database connection or update your driver to fix this.");
-				}
+		try {
+			this.update("CREATE TABLE IF NOT EXISTS `" + creator.getName() + "` (" + columns + ") " + (this.isSQLite ? "" : "DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_520_ci") + ";");
 
-				else
-					throw t;
+		} catch (final Throwable t) {
+			if (t.toString().contains("Unknown collation")) {
+				Common.log("You need to update your database driver to support utf8mb4_unicode_520_ci collation. We switched to support unicode using 4 bits length because the previous system only supported 3 bits.");
+				Common.log("Some characters such as smiley or Chinese are stored in 4 bits so they would crash the 3-bit database leading to more problems. Most hosting providers have now widely adopted the utf8mb4_unicode_520_ci encoding you seem lacking. Disable database connection or update your driver to fix this.");
 			}
+
+			else
+				throw t;
 		}
 	}
 
@@ -457,13 +525,7 @@ public class SimpleDatabase {
 	 * @param columnsAndValues
 	 */
 	protected final void insert(final String table, @NonNull final SerializedMap columnsAndValues) {
-		synchronized (this.connection) {
-			final String columns = Common.join(columnsAndValues.keySet());
-			final String values = Common.join(columnsAndValues.values(), ", ", value -> value == null || value.equals("NULL") ? "NULL" : (value instanceof Number ? String.valueOf(value) : "'" + value + "'"));
-			final String duplicateUpdate = Common.join(columnsAndValues.entrySet(), ", ", entry -> entry.getKey() + "=VALUES(" + entry.getKey() + ")");
-
-			this.update("INSERT INTO " + this.replaceVariables(table) + " (" + columns + ") VALUES (" + values + ")" + (this.isSQLite ? "" : " ON DUPLICATE KEY UPDATE " + duplicateUpdate + ";"));
-		}
+		this.updatePrepared(this.buildInsert(table, columnsAndValues), columnsAndValues.values().toArray());
 	}
 
 	/**
@@ -482,35 +544,35 @@ public class SimpleDatabase {
 	 * @param maps
 	 */
 	protected final void insertBatch(final String table, @NonNull final List<SerializedMap> maps) {
-		synchronized (this.connection) {
-			final List<String> sqls = new ArrayList<>();
 
-			for (final SerializedMap map : maps)
-				try {
-					final String columns = Common.join(map.keySet());
-					final String values = Common.join(map.values(), ", ", this::parseValue);
-					final String duplicateUpdate = Common.join(map.entrySet(), ", ", entry -> entry.getKey() + "=VALUES(" + entry.getKey() + ")");
+		// Group maps by their columns so that each group shares one prepared statement
+		final Map<String, List<Object[]>> batches = new LinkedHashMap<>();
 
-					final String sql = "INSERT INTO " + table + " (" + columns + ") VALUES (" + values + ")" + (this.isSQLite ? "" : " ON DUPLICATE KEY UPDATE " + duplicateUpdate + ";");
-					Debugger.debug("mysql", "Inserting batch SQL: " + sql);
+		for (final SerializedMap map : maps)
+			try {
+				final String sql = this.buildInsert(table, map);
+				Debugger.debug("mysql", "Inserting batch SQL: " + sql);
 
-					sqls.add(sql);
+				batches.computeIfAbsent(sql, key -> new ArrayList<>()).add(map.values().toArray());
 
-				} catch (final Throwable t) {
-					Common.error(t, "Error inserting batch map: " + map);
-				}
+			} catch (final Throwable t) {
+				Common.error(t, "Error inserting batch map: " + map);
+			}
 
-			this.batchUpdate(sqls);
-		}
+		for (final Map.Entry<String, List<Object[]>> entry : batches.entrySet())
+			this.batchUpdatePrepared(entry.getKey(), entry.getValue());
 	}
 
 	/*
-	 * A helper method to insert compatible value to db
+	 * Creates an INSERT statement with ? placeholders for the given columns which
+	 * updates the row instead if it already exists (MySQL only)
 	 */
-	private final String parseValue(final Object value) {
-		final Object serialized = SerializeUtil.serialize(this.getTableMode(), value);
+	private String buildInsert(final String table, final SerializedMap columnsAndValues) {
+		final String columns = Common.join(columnsAndValues.keySet());
+		final String placeholders = Common.join(Collections.nCopies(columnsAndValues.size(), "?"));
+		final String duplicateUpdate = Common.join(columnsAndValues.entrySet(), ", ", entry -> entry.getKey() + "=VALUES(" + entry.getKey() + ")");
 
-		return value == null || value.equals("NULL") ? "NULL" : "'" + serialized.toString() + "'";
+		return "INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")" + (this.isSQLite ? "" : " ON DUPLICATE KEY UPDATE " + duplicateUpdate);
 	}
 
 	/**
@@ -521,26 +583,28 @@ public class SimpleDatabase {
 	 * @param sql
 	 */
 	protected final void update(String sql) {
-		if (!this.connecting)
+		// Allow blocking calls when connecting or when saving data on plugin shutdown
+		if (!this.connecting && SimplePlugin.getInstance().isEnabled())
 			Valid.checkAsync("Updating database must be done async! Call: " + sql);
 
-		synchronized (this.connection) {
-			this.checkEstablished();
+		this.checkEstablished();
 
-			if (!this.isConnected())
-				this.connectUsingLastCredentials();
+		sql = this.replaceVariables(sql);
+		Valid.checkBoolean(!sql.contains("{table}"), "Table not set! Either use connect() method that specifies it or call addVariable(table, 'yourtablename') in your constructor!");
 
-			sql = this.replaceVariables(sql);
-			Valid.checkBoolean(!sql.contains("{table}"), "Table not set! Either use connect() method that specifies it or call addVariable(table, 'yourtablename') in your constructor!");
+		Debugger.debug("mysql", "Updating database with: " + sql);
 
-			Debugger.debug("mysql", "Updating database with: " + sql);
+		final String finalSql = sql;
 
-			try (Statement statement = this.connection.createStatement()) {
-				statement.executeUpdate(sql);
+		try {
+			this.withConnection(connection -> {
+				try (Statement statement = connection.createStatement()) {
+					return statement.executeUpdate(finalSql);
+				}
+			});
 
-			} catch (final SQLException e) {
-				this.handleError(e, "Error on updating database with: " + sql);
-			}
+		} catch (final SQLException e) {
+			this.handleError(e, "Error on updating database with: " + sql);
 		}
 	}
 
@@ -566,31 +630,7 @@ public class SimpleDatabase {
 	 * @param consumer
 	 */
 	protected final void select(final String table, @Nullable final String where, final ResultReader consumer) {
-		synchronized (this.connection) {
-			if (!this.isLoaded())
-				return;
-
-			final String tableName = this.replaceVariables(table);
-
-			try (ResultSet resultSet = this.query("SELECT * FROM " + table + (where == null ? "" : " WHERE " + where))) {
-				while (resultSet.next())
-					try {
-						consumer.accept(new SimpleResultSet(tableName, resultSet));
-
-					} catch (final InvalidRowException ex) {
-						// Pardoned
-
-					} catch (final Throwable t) {
-						Common.log("Error reading a row from table " + tableName + " where " + (where == null ? "all" : where) + ", aborting...");
-
-						t.printStackTrace();
-						break;
-					}
-
-			} catch (final Throwable t) {
-				Common.error(t, "Error selecting rows from table " + table + " where " + (where == null ? "all" : where));
-			}
-		}
+		this.selectRows(table, "SELECT * FROM " + table + (where == null ? "" : " WHERE " + where), where == null ? "all" : where, consumer);
 	}
 
 	/**
@@ -609,52 +649,85 @@ public class SimpleDatabase {
 	 * @param consumer
 	 */
 	protected final void select(final String table, @Nullable final Map<String, Object> where, final ResultReader consumer) {
-		synchronized (this.connection) {
-			if (!this.isLoaded())
-				return;
+		this.selectPrepared(table, buildWhere(where), consumer, where == null ? new Object[0] : where.values().toArray());
+	}
 
-			final String tableName = this.replaceVariables(table);
+	/*
+	 * Runs the given select query and passes each row to the consumer while
+	 * the connection is held, so that nothing needs to be cached in memory
+	 */
+	private void selectRows(final String table, final String sql, final String whereDescription, final ResultReader consumer, final Object... parameters) {
+		if (!this.isLoaded())
+			return;
 
-			try (ResultSet resultSet = this.query("SELECT * FROM " + table + " " + buildWhere(where))) {
-				while (resultSet.next())
-					try {
-						consumer.accept(new SimpleResultSet(tableName, resultSet));
+		Valid.checkAsync("Sending database query must be called async, command: " + sql);
 
-					} catch (final InvalidRowException ex) {
-						// Pardoned
+		final String tableName = this.replaceVariables(table);
+		final String replacedSql = this.replaceVariables(sql);
 
-					} catch (final Throwable t) {
-						Common.log("Error reading a row from table " + tableName + " where " + (where == null ? "all" : where) + ", aborting...");
+		Debugger.debug("mysql", "Querying database with: " + replacedSql);
 
-						t.printStackTrace();
-						break;
+		try {
+			this.withConnection(connection -> {
+				if (parameters.length == 0)
+					try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(replacedSql)) {
+						this.readRows(tableName, whereDescription, resultSet, consumer);
 					}
 
+				else
+					this.withPreparedStatement(connection, replacedSql, statement -> {
+						this.bindParameters(statement, parameters);
+
+						try (ResultSet resultSet = statement.executeQuery()) {
+							this.readRows(tableName, whereDescription, resultSet, consumer);
+						}
+
+						return null;
+					});
+
+				return null;
+			});
+
+		} catch (final Throwable t) {
+			if (t instanceof SQLSyntaxErrorException && t.getMessage().startsWith("Table") && t.getMessage().endsWith("doesn't exist"))
+				return;
+
+			Common.error(t, "Error selecting rows from table " + table + " where " + whereDescription);
+		}
+	}
+
+	/*
+	 * Passes each row to the consumer, skipping invalid rows and aborting on errors
+	 */
+	private void readRows(final String tableName, final String whereDescription, final ResultSet resultSet, final ResultReader consumer) throws SQLException {
+		while (resultSet.next())
+			try {
+				consumer.accept(new SimpleResultSet(tableName, resultSet));
+
+			} catch (final InvalidRowException ex) {
+				// Pardoned
+
 			} catch (final Throwable t) {
-				Common.error(t, "Error selecting rows from table " + table + " where " + (where == null ? "all" : where));
+				Common.log("Error reading a row from table " + tableName + " where " + whereDescription + ", aborting...");
+
+				t.printStackTrace();
+				break;
 			}
-		}
 	}
 
+	/*
+	 * Converts the given conditions to a WHERE clause with ? placeholders, or null if empty
+	 */
 	private static String buildWhere(Map<String, Object> conditions) {
 		if (conditions == null || conditions.isEmpty())
-			return "";
+			return null;
 
 		final List<String> clauses = new ArrayList<>();
 
-		conditions.forEach((key, value) -> {
-			String clause;
+		for (final String key : conditions.keySet())
+			clauses.add(key + " = ?");
 
-			if (value instanceof String)
-				clause = String.format("%s = '%s'", key, value);
-
-			else
-				clause = String.format("%s = %s", key, value);
-
-			clauses.add(clause);
-		});
-
-		return "WHERE " + String.join(" AND ", clauses);
+		return String.join(" AND ", clauses);
 	}
 
 	/**
@@ -682,37 +755,55 @@ public class SimpleDatabase {
 	 * @return
 	 */
 	protected final int count(final String table, final SerializedMap conditions) {
-		synchronized (this.connection) {
-			// Convert conditions into SQL syntax
-			final Set<String> conditionsList = Common.convertSet(conditions.entrySet(), entry -> entry.getKey() + " = '" + SerializeUtil.serialize(this.getTableMode(), entry.getValue()) + "'");
 
-			// Run the query
-			final String sql = "SELECT * FROM " + table + (conditionsList.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditionsList)) + ";";
+		// Convert conditions into SQL syntax
+		final Set<String> conditionsList = Common.convertSet(conditions.entrySet(), entry -> entry.getKey() + " = '" + SerializeUtil.serialize(this.getTableMode(), entry.getValue()) + "'");
+
+		// Run the query
+		final String sql = this.replaceVariables("SELECT * FROM " + table + (conditionsList.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditionsList)) + ";");
+
+		Valid.checkAsync("Sending database query must be called async, command: " + sql);
 
-			try (ResultSet resultSet = this.query(sql)) {
-				int count = 0;
+		this.checkEstablished();
 
-				while (resultSet.next())
-					count++;
+		Debugger.debug("mysql", "Counting rows with: " + sql);
 
-				return count;
+		try {
 
-			} catch (final SQLException ex) {
-				Common.throwError(ex,
-						"Unable to count rows!",
-						"Table: " + this.replaceVariables(table),
-						"Conditions: " + conditions,
-						"Query: " + sql);
-			}
+			// Read the rows on the connection we were given, the main one stays locked until we are done
+			return this.withConnection(connection -> {
+				try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+					int count = 0;
+
+					while (resultSet.next())
+						count++;
 
-			return 0;
+					return count;
+				}
+			});
+
+		} catch (final SQLException ex) {
+			if (ex instanceof SQLSyntaxErrorException && ex.getMessage().startsWith("Table") && ex.getMessage().endsWith("doesn't exist"))
+				return 0;
+
+			Common.throwError(ex,
+					"Unable to count rows!",
+					"Table: " + this.replaceVariables(table),
+					"Conditions: " + conditions,
+					"Query: " + sql);
 		}
+
+		return 0;
 	}
 
 	/**
 	 * Attempts to execute a new query
 	 * <p>
 	 * Make sure you called connect() first otherwise an error will be thrown
+	 * <p>
+	 * When using pooled connections, the returned result set is fully read into memory
+	 * and disconnected from the database. Prefer {@link #select(String, String, ResultReader)}
+	 * for large tables.
 	 *
 	 * @param sql
 	 * @return
@@ -720,31 +811,41 @@ public class SimpleDatabase {
 	protected final ResultSet query(String sql) {
 		Valid.checkAsync("Sending database query must be called async, command: " + sql);
 
-		synchronized (this.connection) {
-			this.checkEstablished();
+		this.checkEstablished();
 
-			if (!this.isConnected())
-				this.connectUsingLastCredentials();
+		sql = this.replaceVariables(sql);
 
-			sql = this.replaceVariables(sql);
+		Debugger.debug("mysql", "Querying database with: " + sql);
 
-			Debugger.debug("mysql", "Querying database with: " + sql);
+		final String finalSql = sql;
 
-			try {
-				final Statement statement = this.connection.createStatement();
-				final ResultSet resultSet = statement.executeQuery(sql);
+		try {
+			return this.withConnection(connection -> {
+				final Statement statement = connection.createStatement();
 
-				return resultSet;
+				if (!this.isPooled())
+					return statement.executeQuery(finalSql);
 
-			} catch (final SQLException ex) {
-				if (ex instanceof SQLSyntaxErrorException && ex.getMessage().startsWith("Table") && ex.getMessage().endsWith("doesn't exist"))
-					return new DummyResultSet();
+				// The connection returns to the pool after this call, so read the rows now
+				try (ResultSet resultSet = statement.executeQuery(finalSql)) {
+					final CachedRowSet cachedSet = RowSetProvider.newFactory().createCachedRowSet();
+					cachedSet.populate(resultSet);
 
-				this.handleError(ex, "Error on querying database with: " + sql);
-			}
+					return cachedSet;
 
-			return null;
+				} finally {
+					statement.close();
+				}
+			});
+
+		} catch (final SQLException ex) {
+			if (ex instanceof SQLSyntaxErrorException && ex.getMessage().startsWith("Table") && ex.getMessage().endsWith("doesn't exist"))
+				return new DummyResultSet();
+
+			this.handleError(ex, "Error on querying database with: " + sql);
 		}
+
+		return null;
 	}
 
 	/**
@@ -756,57 +857,342 @@ public class SimpleDatabase {
 		if (sqls.isEmpty())
 			return;
 
-		synchronized (this.connection) {
-			this.checkEstablished();
+		this.checkEstablished();
 
-			if (!this.isConnected())
-				this.connectUsingLastCredentials();
+		try {
+			this.withConnection(connection -> {
+				try (Statement batchStatement = connection.createStatement(this.isSQLite ? ResultSet.TYPE_FORWARD_ONLY : ResultSet.TYPE_SCROLL_SENSITIVE, this.isSQLite ? ResultSet.CONCUR_READ_ONLY : ResultSet.CONCUR_UPDATABLE)) {
+					final int processedCount = sqls.size();
 
-			try (Statement batchStatement = this.getConnection().createStatement(this.isSQLite ? ResultSet.TYPE_FORWARD_ONLY : ResultSet.TYPE_SCROLL_SENSITIVE, this.isSQLite ? ResultSet.CONCUR_READ_ONLY : ResultSet.CONCUR_UPDATABLE)) {
-				final int processedCount = sqls.size();
+					for (final String sql : sqls)
+						batchStatement.addBatch(this.replaceVariables(sql));
 
-				for (final String sql : sqls)
-					batchStatement.addBatch(this.replaceVariables(sql));
+					if (processedCount > 10_000)
+						Common.log("Updating your database (" + processedCount + " entries)... PLEASE BE PATIENT THIS WILL TAKE "
+								+ (processedCount > 50_000 ? "10-20 MINUTES" : "5-10 MINUTES") + " - If server will print a crash report, ignore it, update will proceed.");
 
-				if (processedCount > 10_000)
-					Common.log("Updating your database (" + processedCount + " entries)... PLEASE BE PATIENT THIS WILL TAKE "
-							+ (processedCount > 50_000 ? "10-20 MINUTES" : "5-10 MINUTES") + " - If server will print a crash report, ignore it, update will proceed.");
+					// Prevent automatically sending db instructions
+					connection.setAutoCommit(false);
 
-				// Prevent automatically sending db instructions
-				this.getConnection().setAutoCommit(false);
+					try {
+						// Execute
+						batchStatement.executeBatch();
 
-				try {
-					// Execute
-					batchStatement.executeBatch();
+						// This will block the thread
+						connection.commit();
+
+					} catch (final Throwable t) {
+						final List<String> errorMessage = new ArrayList<>();
+
+						errorMessage.add("Error executing a batch update with " + sqls.size() + " SQLs:");
+
+						for (final String sql : sqls)
+							errorMessage.add(sql);
 
-					// This will block the thread
-					this.getConnection().commit();
+						Common.error(t, Common.toArray(errorMessage));
+
+						// Cancel the task but handle the error upstream
+						throw t;
+					}
 
 				} catch (final Throwable t) {
-					final List<String> errorMessage = new ArrayList<>();
+					t.printStackTrace();
 
-					errorMessage.add("Error executing a batch update with " + sqls.size() + " SQLs:");
+				} finally {
+					try {
+						connection.setAutoCommit(true);
 
-					for (final String sql : sqls)
-						errorMessage.add(sql);
+					} catch (final SQLException ex) {
+						ex.printStackTrace();
+					}
+				}
+
+				return null;
+			});
+
+		} catch (final SQLException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * Attempts to execute a new update query using a prepared statement, binding
+	 * the given parameters to the ? placeholders in the SQL.
+	 * <p>
+	 * The statement is cached and reused for the same SQL. Supports {@link SerializedMap} (stored as JSON),
+	 * {@link UUID}, {@link ItemStack} and anything else {@link SerializeUtil} can serialize.
+	 * <p>
+	 * Example: updatePrepared("UPDATE {table} SET Data = ? WHERE UUID = ?", data, uuid)
+	 *
+	 * @param sql
+	 * @param parameters
+	 */
+	protected final void updatePrepared(String sql, final Object... parameters) {
+		// Allow blocking calls when connecting or when saving data on plugin shutdown
+		if (!this.connecting && SimplePlugin.getInstance().isEnabled())
+			Valid.checkAsync("Updating database must be done async! Call: " + sql);
+
+		this.checkEstablished();
+
+		sql = this.replaceVariables(sql);
+		Valid.checkBoolean(!sql.contains("{table}"), "Table not set! Either use connect() method that specifies it or call addVariable(table, 'yourtablename') in your constructor!");
+
+		Debugger.debug("mysql", "Updating database with prepared: " + sql);
+
+		final String finalSql = sql;
 
-					Common.error(t, Common.toArray(errorMessage));
+		try {
+			this.withConnection(connection -> this.withPreparedStatement(connection, finalSql, statement -> {
+				this.bindParameters(statement, parameters);
+
+				return statement.executeUpdate();
+			}));
+
+		} catch (final SQLException e) {
+			this.handleError(e, "Error on updating database with: " + sql + " and parameters " + Common.join(parameters));
+		}
+	}
 
-					// Cancel the task but handle the error upstream
-					throw t;
+	/**
+	 * Executes the given prepared SQL once per each parameter array in a single batch
+	 * <p>
+	 * Errors are logged and the whole batch is rolled back.
+	 *
+	 * @param sql
+	 * @param parameters
+	 * @return false if the batch failed and nothing was written
+	 */
+	protected final boolean batchUpdatePrepared(final String sql, @NonNull final List<Object[]> parameters) {
+		if (parameters.isEmpty())
+			return true;
+
+		if (SimplePlugin.getInstance().isEnabled())
+			Valid.checkAsync("Updating database must be done async! Call: " + sql);
+
+		this.checkEstablished();
+
+		final String replacedSql = this.replaceVariables(sql);
+
+		try {
+			this.withConnection(connection -> this.withPreparedStatement(connection, replacedSql, statement -> {
+				for (final Object[] row : parameters) {
+					this.bindParameters(statement, row);
+
+					statement.addBatch();
 				}
 
-			} catch (final Throwable t) {
-				t.printStackTrace();
+				// Prevent automatically sending db instructions
+				connection.setAutoCommit(false);
 
-			} finally {
 				try {
-					this.getConnection().setAutoCommit(true);
+					statement.executeBatch();
+					connection.commit();
 
 				} catch (final SQLException ex) {
-					ex.printStackTrace();
+					connection.rollback();
+
+					throw ex;
+
+				} finally {
+					connection.setAutoCommit(true);
 				}
+
+				return null;
+			}));
+
+			return true;
+
+		} catch (final SQLException ex) {
+			Common.error(ex, "Error executing a batch update with " + parameters.size() + " rows: " + replacedSql);
+
+			return false;
+		}
+	}
+
+	/**
+	 * Lists all rows in the given table matching the given where clause with ? placeholders
+	 * for the given parameters. Example use:
+	 *
+	 * selectPrepared(table, "PlayerUid = ? AND Status = ?", resultSet, player.getUniqueId(), "PENDING");
+	 *
+	 * @param table
+	 * @param where
+	 * @param consumer
+	 * @param parameters
+	 */
+	protected final void selectPrepared(final String table, @Nullable final String where, final ResultReader consumer, final Object... parameters) {
+		this.selectRows(table, "SELECT * FROM " + table + (where == null ? "" : " WHERE " + where), where == null ? "all" : where + " " + Common.join(parameters), consumer, parameters);
+	}
+
+	/**
+	 * Iterates over rows in the given table matching the given where clause with ? placeholders,
+	 * streaming them from the database instead of reading all rows into memory first.
+	 * <p>
+	 * Use this for large tables, such as for leaderboards or migrations. The connection is held
+	 * until all rows are read, so keep your consumer fast.
+	 *
+	 * @param table
+	 * @param where
+	 * @param fetchSize how many rows to fetch from the database at once, ignored for MySQL which streams rows one by one
+	 * @param consumer
+	 * @param parameters
+	 */
+	protected final void forEachRow(final String table, @Nullable final String where, final int fetchSize, final ResultReader consumer, final Object... parameters) {
+		if (!this.isLoaded())
+			return;
+
+		final String tableName = this.replaceVariables(table);
+		final String sql = this.replaceVariables("SELECT * FROM " + table + (where == null ? "" : " WHERE " + where));
+		final String whereDescription = where == null ? "all" : where + " " + Common.join(parameters);
+
+		Valid.checkAsync("Sending database query must be called async, command: " + sql);
+		Debugger.debug("mysql", "Streaming rows from database with: " + sql);
+
+		try {
+			this.withConnection(connection -> {
+				try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+					// MySQL Connector/J only streams results with this special fetch size
+					statement.setFetchSize(this.lastCredentials.url.startsWith("jdbc:mysql") ? Integer.MIN_VALUE : fetchSize);
+					this.bindParameters(statement, parameters);
+
+					try (ResultSet resultSet = statement.executeQuery()) {
+						this.readRows(tableName, whereDescription, resultSet, consumer);
+					}
+				}
+
+				return null;
+			});
+
+		} catch (final SQLException ex) {
+			Common.error(ex, "Error streaming rows from table " + tableName + " where " + whereDescription);
+		}
+	}
+
+	/*
+	 * Binds the given parameters to the statement in order
+	 */
+	private void bindParameters(final PreparedStatement statement, final Object[] parameters) throws SQLException {
+		for (int i = 0; i < parameters.length; i++)
+			this.bindParameter(statement, i + 1, parameters[i]);
+	}
+
+	/*
+	 * Binds a single value to the statement, converting it to a database compatible type
+	 */
+	private void bindParameter(final PreparedStatement statement, final int index, final Object value) throws SQLException {
+		if (value == null || "NULL".equals(value))
+			statement.setNull(index, Types.NULL);
+
+		else if (value instanceof String)
+			statement.setString(index, (String) value);
+
+		// Store booleans as 'true' or 'false' the same way the old string queries did
+		else if (value instanceof Boolean)
+			statement.setString(index, value.toString());
+
+		else if (value instanceof Number || value instanceof Timestamp || value instanceof Date)
+			statement.setObject(index, value);
+
+		else if (value instanceof SerializedMap)
+			statement.setString(index, ((SerializedMap) value).toJson());
+
+		else if (value instanceof UUID)
+			statement.setString(index, value.toString());
+
+		else if (value instanceof ItemStack || value instanceof ItemStack[])
+			statement.setString(index, SerializeUtil.serialize(Mode.JSON, value).toString());
+
+		else {
+			final Object serialized = SerializeUtil.serialize(this.getTableMode(), value);
+
+			if (serialized instanceof Number)
+				statement.setObject(index, serialized);
+			else
+				statement.setString(index, serialized == null ? null : serialized.toString());
+		}
+	}
+
+	/*
+	 * Runs the function with a prepared statement for the given connection. Statements on the main
+	 * connection are cached, those on pooled connections are closed after use.
+	 */
+	private <T> T withPreparedStatement(final Connection connection, final String sql, final StatementFunction<T> function) throws SQLException {
+		if (this.isPooled())
+			try (PreparedStatement statement = connection.prepareStatement(sql)) {
+				return function.apply(statement);
 			}
+
+		if (this.statementCacheConnection != connection) {
+			this.clearStatementCache();
+
+			this.statementCacheConnection = connection;
+		}
+
+		PreparedStatement statement = this.statementCache.get(sql);
+
+		if (statement == null || statement.isClosed()) {
+			statement = connection.prepareStatement(sql);
+
+			this.statementCache.put(sql, statement);
+		}
+
+		try {
+			return function.apply(statement);
+
+		} catch (final SQLException ex) {
+
+			// Do not reuse statements in an unknown state
+			this.statementCache.remove(sql);
+			closeStatement(statement);
+
+			throw ex;
+
+		} finally {
+			if (!statement.isClosed())
+				statement.clearParameters();
+		}
+	}
+
+	/*
+	 * Closes all cached prepared statements
+	 */
+	private void clearStatementCache() {
+		for (final PreparedStatement statement : this.statementCache.values())
+			closeStatement(statement);
+
+		this.statementCache.clear();
+		this.statementCacheConnection = null;
+	}
+
+	/*
+	 * Closes the statement ignoring errors
+	 */
+	private static void closeStatement(final Statement statement) {
+		try {
+			statement.close();
+
+		} catch (final SQLException ex) {
+			// Ignore
+		}
+	}
+
+	/*
+	 * Runs the given function with a connection. When pooled connections are enabled
+	 * we borrow one from the pool and return it after, otherwise we lock the main
+	 * connection and reconnect it if it was lost
+	 */
+	private <T> T withConnection(final ConnectionFunction<T> function) throws SQLException {
+		if (this.isPooled())
+			try (Connection pooledConnection = ((DataSource) this.hikariDataSource).getConnection()) {
+				return function.apply(pooledConnection);
+			}
+
+		synchronized (this.connection) {
+			if (!this.isConnected())
+				this.connectUsingLastCredentials();
+
+			return function.apply(this.connection);
 		}
 	}
 
@@ -814,6 +1200,9 @@ public class SimpleDatabase {
 	 * Attempts to return a prepared statement
 	 * <p>
 	 * Make sure you called connect() first otherwise an error will be thrown
+	 * <p>
+	 * The statement is always created on the main connection, even when pooled connections
+	 * are enabled, since you own the statement and are responsible for closing it.
 	 *
 	 * @param sql
 	 * @return
@@ -837,6 +1226,9 @@ public class SimpleDatabase {
 	 * Attempts to return a prepared statement
 	 * <p>
 	 * Make sure you called connect() first otherwise an error will be thrown
+	 * <p>
+	 * The statement is always created on the main connection, even when pooled connections
+	 * are enabled, since you own the statement and are responsible for closing it.
 	 *
 	 * @param sql
 	 * @param type
@@ -992,6 +1384,16 @@ public class SimpleDatabase {
 		return this.isSQLite;
 	}
 
+	/**
+	 * Return if queries borrow their own connection from the HikariCP pool
+	 * instead of sharing the main connection, see {@link #setUsePooledConnections(boolean)}
+	 *
+	 * @return
+	 */
+	protected final boolean isPooled() {
+		return usePooledConnections && this.hikariDataSource != null;
+	}
+
 	// --------------------------------------------------------------------
 	// Classes
 	// --------------------------------------------------------------------
@@ -1142,6 +1544,22 @@ public class SimpleDatabase {
 		void accept(SimpleResultSet set) throws SQLException;
 	}
 
+	/*
+	 * A helper to run code with a database connection, allowing SQL exceptions
+	 */
+	private interface ConnectionFunction<T> {
+
+		T apply(Connection connection) throws SQLException;
+	}
+
+	/*
+	 * A helper to run code with a prepared statement, allowing SQL exceptions
+	 */
+	private interface StatementFunction<T> {
+
+		T apply(PreparedStatement statement) throws SQLException;
+	}
+
 	private static class InvalidRowException extends RuntimeException {
 		private static final long serialVersionUID = 1L;
 	}
@@ -1584,4 +2002,4 @@ public class SimpleDatabase {
 		 */
 		private final String table;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
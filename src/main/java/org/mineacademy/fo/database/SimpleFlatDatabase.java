@@ -1,9 +1,19 @@
 package org.mineacademy.fo.database;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 import javax.annotation.Nullable;
 
@@ -16,9 +26,12 @@ import org.mineacademy.fo.Valid;
 import org.mineacademy.fo.collection.SerializedMap;
 import org.mineacademy.fo.debug.Debugger;
 import org.mineacademy.fo.debug.LagCatcher;
+import org.mineacademy.fo.model.SimpleTask;
+import org.mineacademy.fo.plugin.SimplePlugin;
 import org.mineacademy.fo.settings.SimpleSettings;
 
-import lombok.NonNull;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 
 /**
  * Represents a simple database where values are flattened and stored
@@ -44,12 +57,42 @@ import lombok.NonNull;
  */
 public abstract class SimpleFlatDatabase<T> extends SimpleDatabase {
 
+	/**
+	 * How many unique IDs to load in one query in {@link #loadAll(Map, Runnable)}
+	 */
+	private static final int LOAD_CHUNK_SIZE = 500;
+
+	/**
+	 * All connected databases, used to write queued saves when the plugin is disabled
+	 */
+	private static final Set<SimpleFlatDatabase<?>> connectedDatabases = ConcurrentHashMap.newKeySet();
+
 	/**
 	 * An internal flag to prevent dead lock so that we do not call any
-	 * more queries within the {@link #load(UUID, Object)} or {@link #save(UUID, Object)} methods
+	 * more queries within the {@link #load(UUID, Object)} method
 	 */
 	private boolean isQuerying = false;
 
+	/**
+	 * Saves waiting to be written by unique ID, only the latest data is kept for each
+	 */
+	private final Map<UUID, PendingSave> pendingSaves = new LinkedHashMap<>();
+
+	/**
+	 * Ensures only one thread writes queued saves at a time
+	 */
+	private final Object flushLock = new Object();
+
+	/**
+	 * Is a task already scheduled to write queued saves?
+	 */
+	private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+	/**
+	 * The repeating task writing queued saves, see {@link #getSaveIntervalTicks()}
+	 */
+	private SimpleTask flushTask;
+
 	/**
 	 * Creates the table if it does not exist
 	 * <p>
@@ -66,10 +109,38 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabase {
 		// Remove entries that have not been updated in the last X days
 		this.removeOldEntries();
 
+		// Start writing queued saves periodically, restarting the task when reconnecting
+		final int intervalTicks = this.getSaveIntervalTicks();
+
+		if (this.flushTask != null)
+			this.flushTask.cancel();
+
+		if (intervalTicks > 0)
+			this.flushTask = Common.runTimerAsync(intervalTicks, intervalTicks, this::flush);
+
+		connectedDatabases.add(this);
+
 		// Call any hooks
 		this.onConnectFinish();
 	}
 
+	/**
+	 * Stops writing queued saves periodically and writes the remaining ones
+	 * before the connection is closed
+	 */
+	@Override
+	protected final void onClose() {
+		if (this.flushTask != null) {
+			this.flushTask.cancel();
+
+			this.flushTask = null;
+		}
+
+		connectedDatabases.remove(this);
+
+		this.flush();
+	}
+
 	/**
 	 * You can override this to run code after the connection was made and
 	 * the table created as well as purged ({@link #removeOldEntries()})
@@ -100,6 +171,33 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabase {
 		return 90;
 	}
 
+	/**
+	 * How often (in ticks) queued saves are written to the database. Saves of the same
+	 * unique ID made in between are merged so that only the latest data is written.
+	 * <p>
+	 * Values of 0 or lower write saves as soon as possible, still merging saves made
+	 * while a previous write is in progress.
+	 * <p>
+	 * Default: 0
+	 *
+	 * @return
+	 */
+	protected int getSaveIntervalTicks() {
+		return 0;
+	}
+
+	/**
+	 * The amount of queued saves to write in one batch. When more saves are queued
+	 * we write them right away without waiting for {@link #getSaveIntervalTicks()}.
+	 * <p>
+	 * Default: 100
+	 *
+	 * @return
+	 */
+	protected int getSaveBatchSize() {
+		return 100;
+	}
+
 	/**
 	 * Load the data for the given unique ID and his cache
 	 *
@@ -142,7 +240,7 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabase {
 		if (!this.isLoaded() || this.isQuerying)
 			return;
 
-		LagCatcher.start("mysql");
+		final long lagToken = LagCatcher.start("mysql");
 		this.isQuerying = true;
 
 		Debugger.debug("mysql", "---------------- MySQL - Loading data for " + uuid);
@@ -150,8 +248,11 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabase {
 		Common.runAsync(() -> {
 
 			try {
-				final ResultSet resultSet = this.query("SELECT * FROM {table} WHERE UUID='" + uuid + "'");
-				final String dataRaw = resultSet.next() ? resultSet.getString("Data") : "{}";
+				final AtomicReference<String> dataHolder = new AtomicReference<>("{}");
+
+				this.selectPrepared("{table}", "UUID = ?", set -> dataHolder.set(set.getString("Data")), uuid);
+
+				final String dataRaw = dataHolder.get();
 				Debugger.debug("mysql", "JSON: " + dataRaw);
 
 				Common.runLater(() -> {
@@ -186,11 +287,107 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabase {
 			} finally {
 				this.isQuerying = false;
 
-				this.logPerformance("loading");
+				this.logPerformance("loading", lagToken);
+			}
+		});
+	}
+
+	/**
+	 * Load the data for all given unique IDs into their caches async, using one
+	 * query per {@link #LOAD_CHUNK_SIZE} entries instead of one query per entry.
+	 * <p>
+	 * Caches without stored data are loaded from an empty map, same as {@link #load(UUID, Object)}.
+	 *
+	 * @param caches
+	 * @param runAfterLoad callback synced on the main thread
+	 */
+	public final void loadAll(final Map<UUID, T> caches, @Nullable Runnable runAfterLoad) {
+		if (!this.isLoaded() || caches.isEmpty())
+			return;
+
+		final long lagToken = LagCatcher.start("mysql");
+
+		final List<UUID> uuids = new ArrayList<>(caches.keySet());
+
+		Debugger.debug("mysql", "---------------- MySQL - Loading data for " + uuids.size() + " entries");
+
+		Common.runAsync(() -> {
+
+			try {
+				final Map<UUID, String> rawData = new HashMap<>();
+
+				for (int from = 0; from < uuids.size(); from += LOAD_CHUNK_SIZE) {
+					final List<UUID> chunk = uuids.subList(from, Math.min(from + LOAD_CHUNK_SIZE, uuids.size()));
+					final String placeholders = Common.join(Collections.nCopies(chunk.size(), "?"));
+
+					this.selectPrepared("{table}", "UUID IN (" + placeholders + ")", set -> rawData.put(set.getUniqueIdStrict("UUID"), set.getString("Data")), chunk.toArray());
+				}
+
+				Common.runLater(() -> {
+					for (final Map.Entry<UUID, T> entry : caches.entrySet()) {
+						final String dataRaw = rawData.getOrDefault(entry.getKey(), "{}");
+
+						try {
+							this.onLoad(SerializedMap.fromJson(dataRaw), entry.getValue());
+
+						} catch (final Throwable t) {
+							Common.error(t,
+									"Failed to parse loaded data from MySQL!",
+									"UUID: " + entry.getKey(),
+									"Raw data: " + dataRaw,
+									"Error: %error");
+						}
+					}
+
+					// Invoke sync callback when load finish
+					if (runAfterLoad != null)
+						runAfterLoad.run();
+				});
+
+			} catch (final Throwable t) {
+				Common.error(t,
+						"Failed to load data from MySQL!",
+						"Entries: " + uuids.size(),
+						"Error: %error");
+
+			} finally {
+				this.logPerformance("loading", lagToken);
 			}
 		});
 	}
 
+	/**
+	 * Iterates over all stored rows on the calling thread, streaming them from the database
+	 * without loading the whole table into memory. Useful for leaderboards or migrations.
+	 * <p>
+	 * Must be called async. Rows with invalid unique IDs or data we cannot parse are skipped,
+	 * errors thrown by your consumer abort the iteration.
+	 *
+	 * @param consumer receives the unique ID and the data of each row
+	 */
+	public final void forEachRow(final BiConsumer<UUID, SerializedMap> consumer) {
+		this.forEachRow("{table}", null, 500, set -> {
+			final UUID uuid = set.getUniqueIdStrict("UUID");
+			final String dataRaw = set.getString("Data");
+			final SerializedMap data;
+
+			try {
+				data = SerializedMap.fromJson(dataRaw);
+
+			} catch (final Throwable t) {
+				Common.error(t,
+						"Failed to parse data from MySQL, skipping row!",
+						"UUID: " + uuid,
+						"Raw data: " + dataRaw,
+						"Error: %error");
+
+				return;
+			}
+
+			consumer.accept(uuid, data);
+		});
+	}
+
 	/**
 	 * Your method to load the data for the given unique ID and his cache
 	 *
@@ -240,7 +437,10 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabase {
 
 	/**
 	 * Save the data for the given name, unique ID and his cache async.
-	 *
+	 * <p>
+	 * The data is queued and written by a single writer, see {@link #getSaveIntervalTicks()}.
+	 * Saving the same unique ID again before the write only writes the latest data.
+	 * <p>
 	 * If the onSave returns empty data we delete the row
 	 *
 	 * @param name
@@ -249,82 +449,231 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabase {
 	 * @param runAfterSave sync callback to be run when save is done
 	 */
 	public final void save(final String name, final UUID uuid, final T cache, @Nullable final Runnable runAfterSave) {
-		if (!this.isLoaded() || this.isQuerying)
+		if (!this.isLoaded())
 			return;
 
-		LagCatcher.start("mysql");
-		this.isQuerying = true;
-
 		// Save using the user configured save method
 		final SerializedMap data = this.onSave(cache);
 
-		Debugger.debug("mysql", "---------------- MySQL - Saving data for " + uuid);
+		Debugger.debug("mysql", "---------------- MySQL - Queuing data save for " + uuid);
 		Debugger.debug("mysql", "Raw data: " + data);
 		Debugger.debug("mysql", "JSON: " + (data == null ? "null" : data.toJson()));
 
+		this.queueSave(uuid, name, data, runAfterSave);
+
+		// Write right away if we are shutting down
+		if (!SimplePlugin.getInstance().isEnabled())
+			this.flush();
+		else
+			this.scheduleFlush();
+	}
+
+	/**
+	 * Save the data for all given unique IDs and their caches in a single batch,
+	 * useful for autosaving or when your plugin is being disabled.
+	 * <p>
+	 * Names are resolved from offline players and only stored for new rows.
+	 * If the onSave returns empty data we delete the row.
+	 *
+	 * @param caches
+	 */
+	public final void saveAll(final Map<UUID, T> caches) {
+		this.saveAll(caches, null);
+	}
+
+	/**
+	 * Save the data for all given unique IDs and their caches in a single batch,
+	 * useful for autosaving or when your plugin is being disabled.
+	 * <p>
+	 * Names are resolved from offline players and only stored for new rows.
+	 * If the onSave returns empty data we delete the row.
+	 * <p>
+	 * When your plugin is disabled, this runs on the calling thread.
+	 *
+	 * @param caches
+	 * @param runAfterSave sync callback to be run when save is done
+	 */
+	public final void saveAll(final Map<UUID, T> caches, @Nullable final Runnable runAfterSave) {
+		if (!this.isLoaded() || caches.isEmpty())
+			return;
+
+		for (final Map.Entry<UUID, T> entry : caches.entrySet()) {
+			final UUID uuid = entry.getKey();
+
+			this.queueSave(uuid, Bukkit.getOfflinePlayer(uuid).getName(), this.onSave(entry.getValue()), null);
+		}
+
+		Debugger.debug("mysql", "---------------- MySQL - Queued data save for " + caches.size() + " entries");
+
+		// Runs on this thread when the plugin is disabled
 		Common.runAsync(() -> {
+			this.flush();
 
-			try {
-				// Remove data if empty
-				if (data == null || data.isEmpty()) {
-					this.update("DELETE FROM {table} WHERE UUID= '" + uuid + "';");
+			if (runAfterSave != null)
+				Common.runLater(() -> runAfterSave.run());
+		});
+	}
+
+	/**
+	 * Write all queued saves now on the calling thread, blocking until done.
+	 * <p>
+	 * Called automatically for all databases before your plugin is disabled.
+	 */
+	public final void flush() {
+		if (!this.isLoaded())
+			return;
 
-					if (Debugger.isDebugged("mysql"))
-						Debugger.debug("mysql", "Data was empty, row has been removed.");
+		synchronized (this.flushLock) {
+			while (true) {
+				final Map<UUID, PendingSave> batch = new LinkedHashMap<>();
 
-				} else if (this.isStored(uuid))
-					this.update("UPDATE {table} SET Data='" + data.toJson() + "', Updated='" + System.currentTimeMillis() + "' WHERE UUID='" + uuid + "';");
-				else
-					this.update("INSERT INTO {table}(UUID, Name, Data, Updated) VALUES ('" + uuid + "', '" + name + "', '" + data.toJson() + "', '" + System.currentTimeMillis() + "');");
+				synchronized (this.pendingSaves) {
+					final Iterator<Map.Entry<UUID, PendingSave>> it = this.pendingSaves.entrySet().iterator();
 
-				if (runAfterSave != null)
-					Common.runLater(() -> runAfterSave.run());
+					while (it.hasNext() && batch.size() < Math.max(1, this.getSaveBatchSize())) {
+						final Map.Entry<UUID, PendingSave> entry = it.next();
 
-			} catch (final Throwable ex) {
-				Common.error(ex,
-						"Failed to save data to MySQL!",
-						"UUID: " + uuid,
-						"Error: %error");
+						batch.put(entry.getKey(), entry.getValue());
+						it.remove();
+					}
+				}
 
-			} finally {
-				this.isQuerying = false;
+				if (batch.isEmpty())
+					return;
 
-				this.logPerformance("saving");
+				// Try again later, such as when the database is back up
+				if (!this.writeBatch(batch))
+					return;
 			}
-		});
+		}
 	}
 
 	/*
-	 * Utility method to finish LagCatcher mysql measure and log
-	 * if there was some lag, or if we detected mysql being run
-	 * from the main thread.
-	 *
-	 * @param operation
+	 * Adds the save to the queue, replacing data queued earlier for the same unique ID
 	 */
-	private void logPerformance(final String operation) {
-		final boolean isMainThread = Bukkit.isPrimaryThread();
+	private void queueSave(final UUID uuid, final String name, final SerializedMap data, @Nullable final Runnable runAfterSave) {
+		synchronized (this.pendingSaves) {
+			final PendingSave previous = this.pendingSaves.remove(uuid);
+			final PendingSave pending = new PendingSave(name, data);
 
-		LagCatcher.end("mysql", isMainThread ? 10 : MathUtil.atLeast(200, SimpleSettings.LAG_THRESHOLD_MILLIS),
-				ChatUtil.capitalize(operation) + " data to MySQL took {time} ms" + (isMainThread ? " - To prevent slowing the server, " + operation + " can be made async (carefully)" : ""));
+			if (previous != null)
+				pending.getCallbacks().addAll(previous.getCallbacks());
+
+			if (runAfterSave != null)
+				pending.getCallbacks().add(runAfterSave);
+
+			this.pendingSaves.put(uuid, pending);
+		}
 	}
 
 	/*
-	 * Checks if the given unique id is stored in the database
-	 *
-	 * @param uuid
-	 * @return
-	 * @throws SQLException
+	 * Schedules writing queued saves unless a write is already scheduled, or the periodic
+	 * task will pick them up and the batch size was not yet reached
 	 */
-	private boolean isStored(@NonNull final UUID uuid) throws SQLException {
-		final ResultSet resultSet = this.query("SELECT * FROM {table} WHERE UUID= '" + uuid.toString() + "'");
+	private void scheduleFlush() {
+		if (this.getSaveIntervalTicks() > 0)
+			synchronized (this.pendingSaves) {
+				if (this.pendingSaves.size() < this.getSaveBatchSize())
+					return;
+			}
 
-		if (resultSet == null)
-			return false;
+		if (this.flushScheduled.compareAndSet(false, true))
+			Common.runAsync(() -> {
+				this.flushScheduled.set(false);
 
-		if (resultSet.next())
-			return resultSet.getString("UUID") != null;
+				this.flush();
+			});
+	}
 
-		return false;
+	/*
+	 * Writes the given saves in two batched statements and runs their callbacks,
+	 * or queues them again returning false if writing failed
+	 */
+	private boolean writeBatch(final Map<UUID, PendingSave> batch) {
+		final List<Object[]> upserts = new ArrayList<>();
+		final List<Object[]> deletions = new ArrayList<>();
+		final long now = System.currentTimeMillis();
+
+		for (final Map.Entry<UUID, PendingSave> entry : batch.entrySet()) {
+			final PendingSave pending = entry.getValue();
+
+			if (pending.getData() == null || pending.getData().isEmpty())
+				deletions.add(new Object[] { entry.getKey() });
+			else
+				upserts.add(new Object[] { entry.getKey(), pending.getName(), pending.getData(), now });
+		}
+
+		Debugger.debug("mysql", "---------------- MySQL - Saving data for " + upserts.size() + " entries, removing " + deletions.size() + " entries");
+
+		final long lagToken = LagCatcher.start("mysql");
+
+		boolean success = false;
+
+		try {
+			success = this.batchUpdatePrepared(this.getUpsertQuery(), upserts) && this.batchUpdatePrepared("DELETE FROM {table} WHERE UUID = ?", deletions);
+
+		} catch (final Throwable ex) {
+			Common.error(ex,
+					"Failed to save data to MySQL!",
+					"Entries: " + batch.keySet(),
+					"Error: %error");
+
+		} finally {
+			this.logPerformance("saving", lagToken);
+		}
+
+		if (success) {
+			for (final PendingSave pending : batch.values())
+				for (final Runnable callback : pending.getCallbacks())
+					Common.runLater(() -> callback.run());
+
+		} else
+			this.requeue(batch);
+
+		return success;
+	}
+
+	/*
+	 * Puts saves that failed to be written back to the queue, unless newer data was queued
+	 * meanwhile in which case we only keep their callbacks
+	 */
+	private void requeue(final Map<UUID, PendingSave> batch) {
+		synchronized (this.pendingSaves) {
+			for (final Map.Entry<UUID, PendingSave> entry : batch.entrySet()) {
+				final PendingSave newer = this.pendingSaves.get(entry.getKey());
+
+				if (newer != null)
+					newer.getCallbacks().addAll(0, entry.getValue().getCallbacks());
+				else
+					this.pendingSaves.put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/*
+	 * Return the query inserting a row or updating its data and last update time
+	 * if it already exists, in a single round trip
+	 */
+	private String getUpsertQuery() {
+		if (this.isSQLite())
+			return "INSERT INTO {table}(UUID, Name, Data, Updated) VALUES (?, ?, ?, ?) ON CONFLICT(UUID) DO UPDATE SET Data = excluded.Data, Updated = excluded.Updated";
+
+		return "INSERT INTO {table}(UUID, Name, Data, Updated) VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE Data = VALUES(Data), Updated = VALUES(Updated)";
+	}
+
+	/*
+	 * Utility method to finish LagCatcher mysql measure and log
+	 * if there was some lag, or if we detected mysql being run
+	 * from the main thread.
+	 *
+	 * @param operation
+	 * @param lagToken
+	 */
+	private void logPerformance(final String operation, final long lagToken) {
+		final boolean isMainThread = Bukkit.isPrimaryThread();
+
+		LagCatcher.end("mysql", lagToken, isMainThread ? 10 : MathUtil.atLeast(200, SimpleSettings.LAG_THRESHOLD_MILLIS),
+				ChatUtil.capitalize(operation) + " data to MySQL took {time} ms" + (isMainThread ? " - To prevent slowing the server, " + operation + " can be made async (carefully)" : ""));
 	}
 
 	/**
@@ -336,4 +685,40 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabase {
 	 * @return
 	 */
 	protected abstract SerializedMap onSave(T data);
+
+	/**
+	 * Write all queued saves for all connected databases, blocking until done
+	 */
+	public static void flushAll() {
+		for (final SimpleFlatDatabase<?> database : connectedDatabases)
+			try {
+				database.flush();
+
+			} catch (final Throwable t) {
+				Common.error(t, "Failed to write queued saves for " + database);
+			}
+	}
+
+	/*
+	 * Data queued to be saved for one unique ID
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	private static final class PendingSave {
+
+		/**
+		 * The last known name
+		 */
+		private final String name;
+
+		/**
+		 * The data, empty or null to remove the row
+		 */
+		private final SerializedMap data;
+
+		/**
+		 * Sync callbacks to run after the data is written
+		 */
+		private final List<Runnable> callbacks = new ArrayList<>();
+	}
 }
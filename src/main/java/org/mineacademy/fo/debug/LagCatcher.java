@@ -4,7 +4,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.bukkit.Bukkit;
 import org.mineacademy.fo.MathUtil;
 import org.mineacademy.fo.Valid;
 import org.mineacademy.fo.plugin.SimplePlugin;
@@ -16,30 +22,71 @@ import lombok.NoArgsConstructor;
 /**
  * A simple yet effective way to calculate duration
  * between two points in code
+ *
+ * Use the token returned from {@link #start(String)} with {@link #end(String, long)}
+ * to measure sections which may end on another thread or overlap with themselves.
+ * Durations are accumulated into {@link Statistics} you can get from {@link #getStatistics()}
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class LagCatcher {
 
 	/**
-	 * Stores sections with the time time they started to be measured
+	 * The token returned from {@link #start(String)} when nothing is being measured
 	 */
-	private static final Map<String, Long> startTimesMap = new HashMap<>();
+	public static final long NOT_MEASURED = Long.MIN_VALUE;
 
 	/**
-	 * Stores sections with a list of lag durations for each section
+	 * Stores sections with the time time they started to be measured, used
+	 * when ending sections by their name only
 	 */
-	private static final Map<String, List<Long>> durationsMap = new HashMap<>();
+	private static final Map<String, Long> startTimesMap = new ConcurrentHashMap<>();
+
+	/**
+	 * Stores sections with a list of lag durations for each section, per thread
+	 * since performance tests run their code on the calling thread
+	 */
+	private static final ThreadLocal<Map<String, List<Long>>> durationsMap = ThreadLocal.withInitial(HashMap::new);
+
+	/**
+	 * Stores accumulated statistics for each finished section
+	 */
+	private static final Map<String, Statistics> statisticsMap = new ConcurrentHashMap<>();
+
+	/**
+	 * Statistics frozen when the last profiling window stopped, or null if it is running or never ran
+	 */
+	private static volatile Map<String, Statistics> profilingStatistics = null;
+
+	/**
+	 * When true, sections are measured even if lag logging is disabled in {@link SimpleSettings}
+	 */
+	private static volatile boolean profiling = false;
+
+	/**
+	 * When the current profiling window started, in milliseconds
+	 */
+	private static volatile long profilingStarted = 0;
+
+	/**
+	 * When the last profiling window stopped, in milliseconds
+	 */
+	private static volatile long profilingStopped = 0;
 
 	/**
 	 * Puts the code section with the current ms time to the timings map
+	 * and returns the time as a token for {@link #end(String, long)}
 	 *
 	 * @param section
+	 * @return the token, or {@link #NOT_MEASURED} if lag logging and profiling are disabled
 	 */
-	public static void start(String section) {
-		if (SimpleSettings.LAG_THRESHOLD_MILLIS == -1)
-			return;
+	public static long start(String section) {
+		if (SimpleSettings.LAG_THRESHOLD_MILLIS == -1 && !profiling)
+			return NOT_MEASURED;
+
+		final long nanoTime = System.nanoTime();
 
-		startTimesMap.put(section, System.nanoTime());
+		startTimesMap.put(section, nanoTime);
+		return nanoTime;
 	}
 
 	/**
@@ -75,7 +122,48 @@ public final class LagCatcher {
 	 * @param message
 	 */
 	public static void end(String section, int thresholdMs, String message) {
-		final double lag = finishAndCalculate(section);
+		if (SimpleSettings.LAG_THRESHOLD_MILLIS == -1 && !profiling)
+			return;
+
+		final Long nanoTime = startTimesMap.remove(section);
+
+		if (nanoTime != null)
+			end(section, nanoTime, thresholdMs, message);
+	}
+
+	/**
+	 * Stops measuring time in a code section started with the given token
+	 * and print a console message when it took over the threshold set in {@link SimpleSettings}
+	 * <p>
+	 * Unlike {@link #end(String)}, this works when the section ends on another thread
+	 * or is being measured several times at once
+	 *
+	 * @param section
+	 * @param token the value returned from {@link #start(String)}
+	 */
+	public static void end(String section, long token) {
+		end(section, token, SimpleSettings.LAG_THRESHOLD_MILLIS, "{section} took {time} ms");
+	}
+
+	/**
+	 * Stops measuring time in a code section started with the given token
+	 * and print a custom console message when it took over the given threshold
+	 * <p>
+	 * Use {section} and {time} to replace the debugged section and how long it took
+	 *
+	 * @param section
+	 * @param token the value returned from {@link #start(String)}
+	 * @param thresholdMs
+	 * @param message
+	 */
+	public static void end(String section, long token, int thresholdMs, String message) {
+		if (token == NOT_MEASURED)
+			return;
+
+		// Only forget the start time if no newer measurement of this section replaced it
+		startTimesMap.remove(section, token);
+
+		final double lag = record(section, token);
 
 		if (lag > thresholdMs && SimpleSettings.LAG_THRESHOLD_MILLIS != -1) {
 			message = (SimplePlugin.hasInstance() ? "[" + SimplePlugin.getNamed() + " " + SimplePlugin.getVersion() + "] " : "") + message
@@ -98,17 +186,19 @@ public final class LagCatcher {
 	public static void performanceTest(int cycles, String name, Runnable code) {
 		Valid.checkBoolean(cycles > 0, "Cycles must be above 0");
 
-		LagCatcher.start(name + "-whole");
+		final long wholeStart = System.nanoTime();
 
 		final List<Double> lagMap = new ArrayList<>();
 
 		for (int i = 0; i < cycles; i++) {
-			LagCatcher.start(name);
+			final long cycleStart = System.nanoTime();
 			code.run();
-			lagMap.add(finishAndCalculate(name));
+			lagMap.add(record(name, cycleStart));
 		}
 
-		System.out.println("Test '" + name + "' took " + MathUtil.formatTwoDigits(finishAndCalculate(name + "-whole")) + " ms. Average " + MathUtil.average(lagMap) + " ms");
+		System.out.println("Test '" + name + "' took " + MathUtil.formatTwoDigits(record(name + "-whole", wholeStart)) + " ms. Average " + MathUtil.average(lagMap) + " ms");
+
+		final Map<String, List<Long>> durationsMap = LagCatcher.durationsMap.get();
 
 		// Measure individual sub sections of the performance test
 		if (!durationsMap.isEmpty()) {
@@ -135,6 +225,7 @@ public final class LagCatcher {
 	 * @param section
 	 */
 	public static void performancePartStart(String section) {
+		final Map<String, List<Long>> durationsMap = LagCatcher.durationsMap.get();
 		List<Long> sectionDurations = durationsMap.get(section);
 
 		if (sectionDurations == null) {
@@ -157,6 +248,8 @@ public final class LagCatcher {
 	 * @param section
 	 */
 	public static void performancePartSnap(String section) {
+		final Map<String, List<Long>> durationsMap = LagCatcher.durationsMap.get();
+
 		Valid.checkBoolean(durationsMap.containsKey(section), "Section " + section + " is not measured! Are you calling it from performanceTest?");
 
 		final List<Long> sectionDurations = durationsMap.get(section);
@@ -168,15 +261,310 @@ public final class LagCatcher {
 		sectionDurations.set(index, duration);
 	}
 
+	/*
+	 * Calculates how long a section started at the given time took (in ms)
+	 * and records it to its statistics
+	 */
+	private static double record(String section, long nanoTime) {
+		final long duration = System.nanoTime() - nanoTime;
+
+		statisticsMap.computeIfAbsent(section, key -> new Statistics()).record(duration);
+		return duration / 1_000_000D;
+	}
+
 	/**
-	 * Calculates how long a section took (in ms) and removes it from the timings map
+	 * Return statistics for the given section, or null if it was not measured
+	 * since the last {@link #resetStatistics()}
 	 *
 	 * @param section
 	 * @return
 	 */
-	private static double finishAndCalculate(String section) {
-		final Long nanoTime = startTimesMap.remove(section);
+	public static Statistics getStatistics(String section) {
+		return statisticsMap.get(section);
+	}
+
+	/**
+	 * Return statistics for all sections measured since the last {@link #resetStatistics()}, sorted by name
+	 *
+	 * @return
+	 */
+	public static Map<String, Statistics> getStatistics() {
+		return new TreeMap<>(statisticsMap);
+	}
+
+	/**
+	 * Return statistics for all sections measured in the last profiling window, sorted by name.
+	 * Once the window stopped, these no longer change even if sections are still measured
+	 * for lag logging. If no window stopped since the last reset, this returns {@link #getStatistics()}.
+	 *
+	 * @return
+	 */
+	public static Map<String, Statistics> getProfilingStatistics() {
+		final Map<String, Statistics> profilingStatistics = LagCatcher.profilingStatistics;
+
+		return profilingStatistics != null ? new TreeMap<>(profilingStatistics) : getStatistics();
+	}
+
+	/**
+	 * Return statistics from {@link #getProfilingStatistics()},
+	 * sorted by the total time they took, longest first
+	 *
+	 * @return
+	 */
+	public static List<Map.Entry<String, Statistics>> getRankedStatistics() {
+		final List<Map.Entry<String, Statistics>> ranked = new ArrayList<>(getProfilingStatistics().entrySet());
+
+		ranked.sort((first, second) -> Double.compare(second.getValue().getTotalMillis(), first.getValue().getTotalMillis()));
+		return ranked;
+	}
+
+	/**
+	 * Return one human readable line per section from {@link #getProfilingStatistics()}, ranked by total time, with count,
+	 * total, min, average, 50th, 95th, 99th percentile and max durations and the main thread share
+	 *
+	 * @return
+	 */
+	public static List<String> dumpStatistics() {
+		final List<String> lines = new ArrayList<>();
+
+		for (final Map.Entry<String, Statistics> entry : getRankedStatistics()) {
+			final Statistics statistics = entry.getValue();
+
+			lines.add(entry.getKey() + ": count=" + statistics.getCount()
+					+ ", total=" + MathUtil.formatTwoDigits(statistics.getTotalMillis())
+					+ ", min=" + MathUtil.formatTwoDigits(statistics.getMinMillis())
+					+ ", avg=" + MathUtil.formatTwoDigits(statistics.getAverageMillis())
+					+ ", p50=" + MathUtil.formatTwoDigits(statistics.getPercentileMillis(50))
+					+ ", p95=" + MathUtil.formatTwoDigits(statistics.getPercentileMillis(95))
+					+ ", p99=" + MathUtil.formatTwoDigits(statistics.getPercentileMillis(99))
+					+ ", max=" + MathUtil.formatTwoDigits(statistics.getMaxMillis()) + " ms"
+					+ ", main thread=" + Math.round(statistics.getMainThreadShare() * 100) + "%");
+		}
+
+		return lines;
+	}
+
+	/**
+	 * Clear statistics for all sections, including those of the last profiling window
+	 */
+	public static void resetStatistics() {
+		statisticsMap.clear();
+
+		profilingStatistics = null;
+	}
+
+	/**
+	 * Start a profiling window: clear statistics and measure all sections
+	 * even when lag logging is disabled in {@link SimpleSettings}
+	 */
+	public static void startProfiling() {
+		resetStatistics();
+
+		profilingStarted = System.currentTimeMillis();
+		profiling = true;
+	}
+
+	/**
+	 * Stop the profiling window, freezing the collected statistics
+	 * for {@link #getProfilingStatistics()}
+	 */
+	public static void stopProfiling() {
+		if (!profiling)
+			return;
+
+		profilingStopped = System.currentTimeMillis();
+		profiling = false;
+
+		final Map<String, Statistics> snapshot = new HashMap<>();
+
+		for (final Map.Entry<String, Statistics> entry : statisticsMap.entrySet())
+			snapshot.put(entry.getKey(), entry.getValue().copy());
+
+		profilingStatistics = snapshot;
+	}
+
+	/**
+	 * Return true if a profiling window is running
+	 *
+	 * @return
+	 */
+	public static boolean isProfiling() {
+		return profiling;
+	}
+
+	/**
+	 * Return how long the current or last profiling window ran, in milliseconds,
+	 * or 0 if profiling was never started
+	 *
+	 * @return
+	 */
+	public static long getProfilingDurationMillis() {
+		return profilingStarted == 0 ? 0 : (profiling ? System.currentTimeMillis() : profilingStopped) - profilingStarted;
+	}
+
+	/**
+	 * Accumulated durations of a single section, safe to record from any thread
+	 */
+	public static final class Statistics {
+
+		/**
+		 * Durations are sorted into buckets by the power of two of their microseconds
+		 */
+		private static final int BUCKETS = 48;
+
+		/**
+		 * How many times the section was measured
+		 */
+		private final LongAdder count = new LongAdder();
+
+		/**
+		 * How long the section took in total, in nanoseconds
+		 */
+		private final LongAdder totalNanos = new LongAdder();
+
+		/**
+		 * How long the section took on the main server thread, in nanoseconds
+		 */
+		private final LongAdder mainThreadNanos = new LongAdder();
+
+		/**
+		 * The shortest measured duration, in nanoseconds
+		 */
+		private final AtomicLong minNanos = new AtomicLong(Long.MAX_VALUE);
+
+		/**
+		 * The longest measured duration, in nanoseconds
+		 */
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		/**
+		 * How many durations fell into each bucket
+		 */
+		private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+		/*
+		 * Return a new statistics with the values recorded so far
+		 */
+		Statistics copy() {
+			final Statistics copy = new Statistics();
+
+			copy.count.add(this.count.sum());
+			copy.totalNanos.add(this.totalNanos.sum());
+			copy.mainThreadNanos.add(this.mainThreadNanos.sum());
+			copy.minNanos.set(this.minNanos.get());
+			copy.maxNanos.set(this.maxNanos.get());
+
+			for (int bucket = 0; bucket < BUCKETS; bucket++)
+				copy.histogram.set(bucket, this.histogram.get(bucket));
+
+			return copy;
+		}
+
+		/*
+		 * Records a single measured duration
+		 */
+		void record(long nanos) {
+			this.count.increment();
+			this.totalNanos.add(nanos);
+
+			if (Bukkit.getServer() != null && Bukkit.isPrimaryThread())
+				this.mainThreadNanos.add(nanos);
+
+			this.minNanos.accumulateAndGet(nanos, Math::min);
+			this.maxNanos.accumulateAndGet(nanos, Math::max);
+			this.histogram.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos) / 1000)));
+		}
+
+		/**
+		 * Return how many times the section was measured
+		 *
+		 * @return
+		 */
+		public long getCount() {
+			return this.count.sum();
+		}
+
+		/**
+		 * Return the shortest time the section took, in milliseconds
+		 *
+		 * @return
+		 */
+		public double getMinMillis() {
+			final long min = this.minNanos.get();
+
+			return min == Long.MAX_VALUE ? 0 : min / 1_000_000D;
+		}
+
+		/**
+		 * Return the average time the section took, in milliseconds
+		 *
+		 * @return
+		 */
+		public double getAverageMillis() {
+			final long count = this.count.sum();
 
-		return nanoTime == null ? 0D : (System.nanoTime() - nanoTime) / 1_000_000D;
+			return count == 0 ? 0 : this.totalNanos.sum() / (double) count / 1_000_000D;
+		}
+
+		/**
+		 * Return the longest time the section took, in milliseconds
+		 *
+		 * @return
+		 */
+		public double getMaxMillis() {
+			return this.maxNanos.get() / 1_000_000D;
+		}
+
+		/**
+		 * Return the total time the section took, in milliseconds
+		 *
+		 * @return
+		 */
+		public double getTotalMillis() {
+			return this.totalNanos.sum() / 1_000_000D;
+		}
+
+		/**
+		 * Return how much of the total time was spent on the main server thread, from 0 to 1
+		 *
+		 * @return
+		 */
+		public double getMainThreadShare() {
+			final long total = this.totalNanos.sum();
+
+			return total == 0 ? 0 : this.mainThreadNanos.sum() / (double) total;
+		}
+
+		/**
+		 * Return the estimated duration below which the given percent of measurements fall,
+		 * in milliseconds. This is the upper bound of the matching histogram bucket, so it may
+		 * overestimate by up to a factor of two, but never exceeds {@link #getMaxMillis()}.
+		 *
+		 * @param percentile from 0 to 100
+		 * @return
+		 */
+		public double getPercentileMillis(double percentile) {
+			Valid.checkBoolean(percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100, got " + percentile);
+
+			long total = 0;
+
+			for (int bucket = 0; bucket < BUCKETS; bucket++)
+				total += this.histogram.get(bucket);
+
+			if (total == 0)
+				return 0;
+
+			final long target = Math.max(1, (long) Math.ceil(total * percentile / 100D));
+			long seen = 0;
+
+			for (int bucket = 0; bucket < BUCKETS; bucket++) {
+				seen += this.histogram.get(bucket);
+
+				if (seen >= target)
+					return Math.min((1L << bucket) / 1000D, this.getMaxMillis());
+			}
+
+			return this.getMaxMillis();
+		}
 	}
 }
\ No newline at end of file
@@ -2,11 +2,15 @@ package org.mineacademy.fo.enchant;
 
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 import java.util.regex.Pattern;
 
@@ -42,6 +46,8 @@ import org.mineacademy.fo.Valid;
 import org.mineacademy.fo.collection.StrictSet;
 import org.mineacademy.fo.exception.FoException;
 import org.mineacademy.fo.remain.CompEquipmentSlot;
+import org.mineacademy.fo.remain.CompItemFlag;
+import org.mineacademy.fo.remain.CompMaterial;
 import org.mineacademy.fo.remain.Remain;
 
 import lombok.AccessLevel;
@@ -88,6 +94,36 @@ public abstract class SimpleEnchantment implements Listener {
 	 */
 	private static final StrictSet<SimpleEnchantment> registeredEnchantments = new StrictSet<>();
 
+	/**
+	 * Item meta - The lore with our enchants, or an empty list if the item has none of them
+	 */
+	private static final Map<ItemMeta, List<String>> loreCache = new ConcurrentHashMap<>();
+
+	/**
+	 * How many item metas to cache lores for before we start over
+	 */
+	private static final int LORE_CACHE_LIMIT = 1000;
+
+	/**
+	 * How many items had our enchantment lore added
+	 */
+	private static final LongAdder rewrittenItems = new LongAdder();
+
+	/**
+	 * How many item lists, such as window packets, had at least one item with our lore added
+	 */
+	private static final LongAdder rewrittenItemLists = new LongAdder();
+
+	/**
+	 * How many times we found the lore in the cache
+	 */
+	private static final LongAdder loreCacheHits = new LongAdder();
+
+	/**
+	 * How many times we had to compile the lore
+	 */
+	private static final LongAdder loreCacheMisses = new LongAdder();
+
 	/**
 	 * The class that will be instantiated to wrap custom enchants.
 	 */
@@ -143,6 +179,7 @@ public abstract class SimpleEnchantment implements Listener {
 			this.handle.register();
 
 			registeredEnchantments.add(this);
+			loreCache.clear();
 		}
 	}
 
@@ -658,6 +695,94 @@ public abstract class SimpleEnchantment implements Listener {
 	 */
 	@Deprecated
 	public static ItemStack addEnchantmentLores(ItemStack item) {
+
+		// Items without meta carry no enchants
+		if (registeredEnchantments.isEmpty() || Remain.hasItemMeta() && !item.hasItemMeta())
+			return null;
+
+		final ItemMeta meta = Remain.hasItemMeta() ? item.getItemMeta() : null;
+		List<String> lore = meta != null ? loreCache.get(meta) : null;
+
+		if (lore != null)
+			loreCacheHits.increment();
+
+		else {
+			loreCacheMisses.increment();
+
+			lore = compileEnchantmentLore(item, meta);
+
+			if (meta != null) {
+				if (loreCache.size() >= LORE_CACHE_LIMIT)
+					loreCache.clear();
+
+				// Clone since we set the lore to the meta below
+				loreCache.put(meta.clone(), lore != null ? lore : Collections.emptyList());
+			}
+		}
+
+		if (lore == null || lore.isEmpty())
+			return null;
+
+		final ItemMeta newMeta = meta != null ? meta : Bukkit.getItemFactory().getItemMeta(item.getType());
+
+		// Set the lore
+		newMeta.setLore(lore);
+
+		// Update the item stack
+		item.setItemMeta(newMeta);
+		rewrittenItems.increment();
+
+		return item;
+	}
+
+	/**
+	 * Adds the fake enchant lore for all items in the list, see {@link #addEnchantmentLores(ItemStack)}
+	 *
+	 * @param items
+	 * @return true if at least one item was edited
+	 * @deprecated internal use only
+	 */
+	@Deprecated
+	public static boolean addEnchantmentLores(List<ItemStack> items) {
+		boolean changed = false;
+
+		for (int i = 0; i < items.size(); i++) {
+			final ItemStack item = items.get(i);
+
+			if (item != null && !CompMaterial.isAir(item.getType()) && !CompItemFlag.HIDE_ENCHANTS.has(item)) {
+				final ItemStack newItem = addEnchantmentLores(item);
+
+				if (newItem != null) {
+					items.set(i, newItem);
+
+					changed = true;
+				}
+			}
+		}
+
+		if (changed)
+			rewrittenItemLists.increment();
+
+		return changed;
+	}
+
+	/**
+	 * Adds the fake enchant lore for all items in the array, see {@link #addEnchantmentLores(ItemStack)}
+	 *
+	 * @param items
+	 * @return true if at least one item was edited
+	 * @deprecated internal use only
+	 */
+	@Deprecated
+	public static boolean addEnchantmentLores(ItemStack[] items) {
+		return addEnchantmentLores(Arrays.asList(items));
+	}
+
+	/*
+	 * Return the lore with our enchants placed above the original lore,
+	 * or null if the item has none of our enchants
+	 */
+	private static List<String> compileEnchantmentLore(ItemStack item, @Nullable ItemMeta meta) {
 		final List<String> customEnchants = new ArrayList<>();
 
 		// Fill in our enchants
@@ -674,58 +799,90 @@ public abstract class SimpleEnchantment implements Listener {
 				}
 			}
 
-			if (Remain.hasItemMeta() && item.hasItemMeta()) {
-				ItemMeta meta = item.getItemMeta();
-				if (meta instanceof EnchantmentStorageMeta) {
-					for (final Map.Entry<Enchantment, Integer> entry : ((EnchantmentStorageMeta) meta).getStoredEnchants().entrySet()) {
-						final Enchantment enchantment = entry.getKey();
-						final SimpleEnchantment simpleEnchantment = fromBukkit(enchantment);
+			if (meta instanceof EnchantmentStorageMeta)
+				for (final Map.Entry<Enchantment, Integer> entry : ((EnchantmentStorageMeta) meta).getStoredEnchants().entrySet()) {
+					final Enchantment enchantment = entry.getKey();
+					final SimpleEnchantment simpleEnchantment = fromBukkit(enchantment);
 
-						if (simpleEnchantment != null) {
-							final String lore = simpleEnchantment.getLore(entry.getValue());
+					if (simpleEnchantment != null) {
+						final String lore = simpleEnchantment.getLore(entry.getValue());
 
-							if (lore != null && !lore.isEmpty())
-								customEnchants.add(Common.colorize(FO_ENCHANT_PREFIX + lore));
-						}
+						if (lore != null && !lore.isEmpty())
+							customEnchants.add(Common.colorize(FO_ENCHANT_PREFIX + lore));
 					}
 				}
-			}
 
 		} catch (final NullPointerException ex) {
 			// Some weird problem in third party plugin
 		}
 
-		if (!customEnchants.isEmpty()) {
-			final ItemMeta meta = Remain.hasItemMeta() && item.hasItemMeta() ? item.getItemMeta() : Bukkit.getItemFactory().getItemMeta(item.getType());
-			final List<String> originalLore = meta.hasLore() ? meta.getLore() : new ArrayList<>();
-			final List<String> finalLore = new ArrayList<>();
+		if (customEnchants.isEmpty())
+			return null;
 
-			final List<String> colorlessOriginals = new ArrayList<>();
+		final List<String> originalLore = meta != null && meta.hasLore() ? meta.getLore() : new ArrayList<>();
+		final List<String> finalLore = new ArrayList<>();
 
-			for (final String original : originalLore)
-				colorlessOriginals.add(ChatColor.stripColor(Common.colorize(original)));
+		final List<String> colorlessOriginals = new ArrayList<>();
 
-			// Place our enchants
-			for (final String customEnchant : customEnchants) {
-				final String colorlessEnchant = ChatColor.stripColor(Common.colorize(customEnchant));
+		for (final String original : originalLore)
+			colorlessOriginals.add(ChatColor.stripColor(Common.colorize(original)));
 
-				if (!colorlessOriginals.contains(colorlessEnchant))
-					finalLore.add(customEnchant);
-			}
+		// Place our enchants
+		for (final String customEnchant : customEnchants) {
+			final String colorlessEnchant = ChatColor.stripColor(Common.colorize(customEnchant));
 
-			// Place the original lore at the bottom
-			finalLore.addAll(originalLore);
+			if (!colorlessOriginals.contains(colorlessEnchant))
+				finalLore.add(customEnchant);
+		}
 
-			// Set the lore
-			meta.setLore(finalLore);
+		// Place the original lore at the bottom
+		finalLore.addAll(originalLore);
 
-			// Update the item stack
-			item.setItemMeta(meta);
+		return finalLore;
+	}
 
-			return item;
-		}
+	/**
+	 * Removes all cached enchantment lores, call this when you change what
+	 * {@link #getLore(int)} returns, such as after reloading your settings
+	 */
+	public static void clearLoreCache() {
+		loreCache.clear();
+	}
 
-		return null;
+	/**
+	 * Return how many items had our enchantment lore added
+	 *
+	 * @return
+	 */
+	public static long getRewrittenItems() {
+		return rewrittenItems.sum();
+	}
+
+	/**
+	 * Return how many item lists, such as window packets, had our enchantment lore added
+	 *
+	 * @return
+	 */
+	public static long getRewrittenItemLists() {
+		return rewrittenItemLists.sum();
+	}
+
+	/**
+	 * Return how many times the enchantment lore was found in the cache
+	 *
+	 * @return
+	 */
+	public static long getLoreCacheHits() {
+		return loreCacheHits.sum();
+	}
+
+	/**
+	 * Return how many times the enchantment lore had to be compiled
+	 *
+	 * @return
+	 */
+	public static long getLoreCacheMisses() {
+		return loreCacheMisses.sum();
 	}
 
 	private static SimpleEnchantment fromBukkit(Enchantment bukkitEnchantment) {
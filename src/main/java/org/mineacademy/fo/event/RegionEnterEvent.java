@@ -0,0 +1,40 @@
+package org.mineacademy.fo.event;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.mineacademy.fo.region.DiskRegion;
+import org.mineacademy.fo.region.RegionTracker;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Triggered when a player enters a {@link DiskRegion}, including when joining the server inside it
+ *
+ * Fired by {@link RegionTracker} when regions are enabled in your plugin.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class RegionEnterEvent extends SimpleEvent {
+
+	private static final HandlerList handlers = new HandlerList();
+
+	/**
+	 * The player
+	 */
+	private final Player player;
+
+	/**
+	 * The region
+	 */
+	private final DiskRegion region;
+
+	@Override
+	public HandlerList getHandlers() {
+		return handlers;
+	}
+
+	public static HandlerList getHandlerList() {
+		return handlers;
+	}
+}
@@ -0,0 +1,41 @@
+package org.mineacademy.fo.event;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.mineacademy.fo.region.DiskRegion;
+import org.mineacademy.fo.region.RegionTracker;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Triggered when a player leaves a {@link DiskRegion}, including when quitting the server inside it
+ * or when the region is removed while the player is in it
+ *
+ * Fired by {@link RegionTracker} when regions are enabled in your plugin.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class RegionLeaveEvent extends SimpleEvent {
+
+	private static final HandlerList handlers = new HandlerList();
+
+	/**
+	 * The player
+	 */
+	private final Player player;
+
+	/**
+	 * The region
+	 */
+	private final DiskRegion region;
+
+	@Override
+	public HandlerList getHandlers() {
+		return handlers;
+	}
+
+	public static HandlerList getHandlerList() {
+		return handlers;
+	}
+}
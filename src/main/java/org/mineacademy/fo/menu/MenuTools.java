@@ -216,7 +216,7 @@ final class ToggleableTool {
 				this.item = (ItemStack) unparsed;
 
 			else if (unparsed instanceof Tool)
-				this.item = ((Tool) unparsed).getItem();
+				this.item = ((Tool) unparsed).getTaggedItem();
 
 			else if (unparsed instanceof Number && ((Number) unparsed).intValue() == 0)
 				this.item = new ItemStack(Material.AIR);
@@ -225,7 +225,7 @@ final class ToggleableTool {
 				final Method getInstance = ReflectionUtil.getMethod((Class<?>) unparsed, "getInstance");
 				Valid.checkNotNull(getInstance, "Class " + unparsed + " must have a public static method getInstance() returning a Tool");
 
-				this.item = ((Tool) ReflectionUtil.invokeStatic(getInstance)).getItem();
+				this.item = ((Tool) ReflectionUtil.invokeStatic(getInstance)).getTaggedItem();
 
 			} else
 				throw new FoException("Unknown tool: " + unparsed + " (we only accept ItemStack, Tool's instance or 0 for air)");
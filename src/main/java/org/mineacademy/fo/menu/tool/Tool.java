@@ -1,6 +1,8 @@
 package org.mineacademy.fo.menu.tool;
 
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.bukkit.entity.Player;
@@ -10,7 +12,10 @@ import org.bukkit.inventory.ItemStack;
 import org.mineacademy.fo.Common;
 import org.mineacademy.fo.ItemUtil;
 import org.mineacademy.fo.Valid;
+import org.mineacademy.fo.constants.FoConstants;
 import org.mineacademy.fo.menu.model.ItemCreator;
+import org.mineacademy.fo.remain.CompMaterial;
+import org.mineacademy.fo.remain.CompMetadata;
 
 /**
  * Represents a tool. A tool is a simple ItemStack that is registered within the
@@ -23,6 +28,11 @@ public abstract class Tool {
 	 */
 	private static final Collection<Tool> tools = new ConcurrentLinkedQueue<>();
 
+	/**
+	 * The registered tools by their {@link #getToolId()}
+	 */
+	private static final Map<String, Tool> toolsById = new ConcurrentHashMap<>();
+
 	/**
 	 * Add a new tool to register.
 	 * <p>
@@ -34,6 +44,9 @@ public abstract class Tool {
 		Valid.checkBoolean(!isRegistered(tool), "Tool with itemstack " + tool.getItem() + " already registered");
 
 		tools.add(tool);
+
+		// Further tools with the same id are only found by comparing their item, see getTaggedItem()
+		toolsById.putIfAbsent(tool.getToolId(), tool);
 	}
 
 	/**
@@ -43,16 +56,31 @@ public abstract class Tool {
 	 * @return true if the tool is registered
 	 */
 	static boolean isRegistered(Tool tool) {
-		return getTool(tool.getItem()) != null;
+		return toolsById.get(tool.getToolId()) == tool || getTool(tool.getItem()) != null;
 	}
 
 	/**
 	 * Attempts to find a registered tool from given itemstack
 	 *
+	 * Items given through {@link #give(Player)} are found by their tool id tag,
+	 * we only compare the item against all tools for untagged items.
+	 *
 	 * @param item the item
 	 * @return the corresponding tool, or null
 	 */
 	public static Tool getTool(ItemStack item) {
+		if (item == null || tools.isEmpty())
+			return null;
+
+		final String toolId = readToolId(item);
+
+		if (toolId != null) {
+			final Tool tool = toolsById.get(toolId);
+
+			if (tool != null)
+				return tool;
+		}
+
 		for (final Tool t : tools)
 			if (t.isTool(item))
 				return t;
@@ -60,6 +88,13 @@ public abstract class Tool {
 		return null;
 	}
 
+	/*
+	 * Return the tool id stored on the item, or null if not tagged
+	 */
+	private static String readToolId(ItemStack item) {
+		return item == null || CompMaterial.isAir(item.getType()) ? null : CompMetadata.getMetadata(item, FoConstants.NBT.TAG_TOOL);
+	}
+
 	/**
 	 * Get all tools
 	 *
@@ -105,6 +140,11 @@ public abstract class Tool {
 	 * @return true if this tool is the given itemstack
 	 */
 	public final boolean isTool(final ItemStack item) {
+		final String toolId = readToolId(item);
+
+		if (toolId != null && toolsById.containsKey(toolId))
+			return toolsById.get(toolId) == this;
+
 		return ItemUtil.isSimilar(this.getItem(), item);
 	}
 
@@ -141,6 +181,36 @@ public abstract class Tool {
 	 */
 	public abstract ItemStack getItem();
 
+	/**
+	 * Get the tool item with its tool id stored in {@link FoConstants.NBT#TAG_TOOL} metadata,
+	 * which is what players receive so we can identify it quickly.
+	 *
+	 * Only the first registered tool with its id is tagged, other tools sharing
+	 * the id are returned untagged and found by comparing their item.
+	 *
+	 * @return the tagged tool item
+	 */
+	public final ItemStack getTaggedItem() {
+		final ItemStack item = this.getItem();
+
+		if (item == null || CompMaterial.isAir(item.getType()) || toolsById.get(this.getToolId()) != this)
+			return item;
+
+		return CompMetadata.setMetadata(item, FoConstants.NBT.TAG_TOOL, this.getToolId());
+	}
+
+	/**
+	 * Return the unique identifier stored on items of this tool, see {@link #getTaggedItem()}.
+	 *
+	 * Defaults to the class name, override if you have multiple tools of the same class
+	 * so that all of them can be tagged.
+	 *
+	 * @return
+	 */
+	public String getToolId() {
+		return this.getClass().getName();
+	}
+
 	/**
 	 * Called automatically when the tool is clicked
 	 *
@@ -218,7 +288,7 @@ public abstract class Tool {
 	 * @param slot
 	 */
 	public final void give(final Player player, final int slot) {
-		player.getInventory().setItem(slot, this.getItem());
+		player.getInventory().setItem(slot, this.getTaggedItem());
 	}
 
 	/**
@@ -227,7 +297,7 @@ public abstract class Tool {
 	 * @param player
 	 */
 	public final void give(final Player player) {
-		player.getInventory().addItem(this.getItem());
+		player.getInventory().addItem(this.getTaggedItem());
 	}
 
 	/**
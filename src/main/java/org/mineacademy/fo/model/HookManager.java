@@ -4,6 +4,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -12,6 +13,9 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -27,6 +31,8 @@ import org.bukkit.block.Block;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
 import org.bukkit.permissions.Permissible;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.RegisteredServiceProvider;
@@ -86,11 +92,14 @@ import io.lumine.mythic.api.MythicProvider;
 import io.lumine.mythic.api.mobs.MobManager;
 import io.lumine.mythic.core.mobs.ActiveMob;
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import me.clip.placeholderapi.PlaceholderAPI;
 import me.clip.placeholderapi.PlaceholderAPIPlugin;
 import me.clip.placeholderapi.PlaceholderHook;
+import me.clip.placeholderapi.events.ExpansionRegisterEvent;
+import me.clip.placeholderapi.events.ExpansionUnregisterEvent;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import me.clip.placeholderapi.expansion.Relational;
 import net.citizensnpcs.api.CitizensAPI;
@@ -1492,6 +1501,26 @@ public final class HookManager {
 		return isPlaceholderAPILoaded() ? placeholderAPIHook.replaceRelationPlaceholders(one, two, message) : message;
 	}
 
+	/**
+	 * Return how long each PlaceholderAPI expansion took to replace its variables,
+	 * by the expansion identifier, or an empty map if PlaceholderAPI is not loaded.
+	 *
+	 * The returned map is a copy which cannot be modified.
+	 *
+	 * @return
+	 */
+	public static Map<String, PlaceholderTiming> getPlaceholderAPITimings() {
+		return isPlaceholderAPILoaded() ? Collections.unmodifiableMap(new HashMap<>(placeholderAPIHook.getTimings())) : Collections.emptyMap();
+	}
+
+	/**
+	 * Resets timings of PlaceholderAPI expansions, see {@link #getPlaceholderAPITimings()}
+	 */
+	public static void resetPlaceholderAPITimings() {
+		if (isPlaceholderAPILoaded())
+			placeholderAPIHook.getTimings().clear();
+	}
+
 	/**
 	 * If PlaceholderAPI is loaded, this method registers a new placeholder
 	 * within it with the given variable and value.
@@ -1818,6 +1847,78 @@ public final class HookManager {
 		if (isDiscordSRVLoaded() && !Common.stripColors(message).isEmpty())
 			discordSRVHook.sendMessage(channel, message);
 	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Classes
+	// ------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Represents how long a placeholder expansion took to replace its variables
+	 */
+	public static final class PlaceholderTiming {
+
+		/**
+		 * How many variables were replaced
+		 */
+		private final LongAdder calls = new LongAdder();
+
+		/**
+		 * How long replacing took in total, in nanoseconds
+		 */
+		private final LongAdder totalNanos = new LongAdder();
+
+		/**
+		 * The longest time replacing a single variable took, in nanoseconds
+		 */
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		/*
+		 * Records a single replaced variable
+		 */
+		void record(long nanos) {
+			this.calls.increment();
+			this.totalNanos.add(nanos);
+			this.maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+
+		/**
+		 * Return how many variables were replaced
+		 *
+		 * @return
+		 */
+		public long getCalls() {
+			return this.calls.sum();
+		}
+
+		/**
+		 * Return the average time replacing a variable took, in milliseconds
+		 *
+		 * @return
+		 */
+		public double getAverageMillis() {
+			final long calls = this.calls.sum();
+
+			return calls == 0 ? 0 : this.totalNanos.sum() / (double) calls / 1_000_000D;
+		}
+
+		/**
+		 * Return the longest time replacing a variable took, in milliseconds
+		 *
+		 * @return
+		 */
+		public double getMaxMillis() {
+			return this.maxNanos.get() / 1_000_000D;
+		}
+
+		/**
+		 * Return the total time replacing variables took, in milliseconds
+		 *
+		 * @return
+		 */
+		public double getTotalMillis() {
+			return this.totalNanos.sum() / 1_000_000D;
+		}
+	}
 }
 
 // ------------------------------------------------------------------------------------------------------------
@@ -2495,9 +2596,35 @@ class VaultHook {
 
 class PlaceholderAPIHook {
 
+	/**
+	 * Expansions by their lowercased identifier, null when it must be rebuilt
+	 */
+	private static volatile Map<String, PlaceholderExpansion> expansionIndex;
+
+	/**
+	 * Whether we listen to expansions being registered or unregistered, if not,
+	 * we rebuild the index when the amount of expansions changes
+	 */
+	private static boolean listening = false;
+
 	private final VariablesInjector injector;
 
+	@Getter
+	private final Map<String, HookManager.PlaceholderTiming> timings = new ConcurrentHashMap<>();
+
 	PlaceholderAPIHook() {
+		expansionIndex = null;
+
+		if (!listening)
+			try {
+				Common.registerEvents(new ExpansionListener());
+
+				listening = true;
+
+			} catch (final Throwable t) {
+				// Old PlaceholderAPI without expansion events
+			}
+
 		injector = new VariablesInjector();
 
 		try {
@@ -2534,23 +2661,31 @@ class PlaceholderAPIHook {
 	}
 
 	private String setPlaceholders(final OfflinePlayer player, String text) {
-		final String oldText = text;
-		final Map<String, PlaceholderExpansion> hooks = new HashMap<>();
+		if (text.indexOf('%') == -1 && text.indexOf('{') == -1)
+			return text;
 
-		// MineAcademy edit: Case insensitive
-		for (final PlaceholderExpansion expansion : PlaceholderAPIPlugin.getInstance().getLocalExpansionManager().getExpansions())
-			hooks.put(expansion.getIdentifier().toLowerCase(), expansion);
+		final Map<String, PlaceholderExpansion> index = getExpansionIndex();
 
-		if (hooks.isEmpty())
+		if (index.isEmpty())
 			return text;
 
-		text = this.setPlaceholders(player, oldText, text, hooks, Variables.VARIABLE_PATTERN.matcher(text));
-		text = this.setPlaceholders(player, oldText, text, hooks, Variables.BRACKET_VARIABLE_PATTERN.matcher(text));
+		final Watchdog watchdog = new Watchdog(player, text);
+
+		try {
+			text = this.setPlaceholders(player, text, index, watchdog, Variables.VARIABLE_PATTERN.matcher(text));
+			text = this.setPlaceholders(player, text, index, watchdog, Variables.BRACKET_VARIABLE_PATTERN.matcher(text));
+
+		} finally {
+			watchdog.cancel();
+		}
 
 		return text;
 	}
 
-	private String setPlaceholders(@Nullable OfflinePlayer player, String oldText, String text, Map<String, PlaceholderExpansion> hooks, Matcher matcher) {
+	private String setPlaceholders(@Nullable OfflinePlayer player, String text, Map<String, PlaceholderExpansion> index, Watchdog watchdog, Matcher matcher) {
+		StringBuilder builder = null;
+		int lastEnd = 0;
+
 		while (matcher.find()) {
 			String format = matcher.group(1);
 			boolean frontSpace = false;
@@ -2568,55 +2703,151 @@ class PlaceholderAPIHook {
 				format = format.substring(0, format.length() - 1);
 			}
 
-			final int index = format.indexOf("_");
+			final int underscore = format.indexOf("_");
 
-			if (index <= 0 || index >= format.length())
+			if (underscore <= 0 || underscore >= format.length())
 				continue;
 
-			final String identifier = format.substring(0, index).toLowerCase();
-			final String params = format.substring(index + 1);
-			final String finalFormat = format;
+			final String identifier = format.substring(0, underscore).toLowerCase();
+			final PlaceholderExpansion expansion = index.get(identifier);
 
-			if (hooks.containsKey(identifier)) {
+			if (expansion == null)
+				continue;
 
-				// Wait 0.5 seconds then kill the thread to prevent server
-				// crashing on PlaceholderAPI variables hanging up on the main thread
-				final Thread currentThread = Thread.currentThread();
-				final boolean main = Bukkit.isPrimaryThread();
-				final BukkitTask watchDog = Common.runLater(main ? 30 : 80, () -> {
-					Common.logFramed(
-							"IMPORTANT: PREVENTED SERVER CRASH FROM PLACEHOLDERAPI",
-							"",
-							"Replacing PlaceholderAPI variable took over " + (main ? "1.5" : "4") + " sec",
-							"and was interrupted to prevent hanging the server.",
-							"",
-							"This is typically caused when a variable sends a",
-							"blocking HTTP request, such as checking stuff on",
-							"the Internet or resolving offline player names.",
-							"This is NOT an error in " + SimplePlugin.getNamed() + ", you need",
-							"to contact the placeholder expansion's author instead.",
-							"",
-							"Variable: " + finalFormat,
-							"Text: " + oldText,
-							"Player: " + (player == null ? "none" : player.getName()));
-
-					currentThread.stop();
-				});
-
-				String value = hooks.get(identifier).onRequest(player, params);
-
-				// Indicate we no longer have to kill the thread.
-				watchDog.cancel();
-
-				if (value != null) {
-					value = Matcher.quoteReplacement(Common.colorize(value));
-
-					text = text.replaceAll(Pattern.quote(matcher.group()), value.isEmpty() ? "" : (frontSpace ? " " : "") + value + (backSpace ? " " : ""));
-				}
+			watchdog.start(format);
+
+			final long startNanos = System.nanoTime();
+			String value = expansion.onRequest(player, format.substring(underscore + 1));
+
+			this.timings.computeIfAbsent(identifier, key -> new HookManager.PlaceholderTiming()).record(System.nanoTime() - startNanos);
+
+			if (value != null) {
+				value = Common.colorize(value);
+
+				if (builder == null)
+					builder = new StringBuilder(text.length() + 16);
+
+				builder.append(text, lastEnd, matcher.start());
+
+				if (!value.isEmpty())
+					builder.append(frontSpace ? " " : "").append(value).append(backSpace ? " " : "");
+
+				lastEnd = matcher.end();
 			}
 		}
 
-		return text;
+		if (builder == null)
+			return text;
+
+		return builder.append(text, lastEnd, text.length()).toString();
+	}
+
+	/*
+	 * Return expansions by their lowercased identifier, rebuilding the index
+	 * when an expansion was registered or unregistered since the last call
+	 */
+	private static Map<String, PlaceholderExpansion> getExpansionIndex() {
+		Map<String, PlaceholderExpansion> index = expansionIndex;
+
+		if (index != null && listening)
+			return index;
+
+		final Collection<PlaceholderExpansion> expansions = PlaceholderAPIPlugin.getInstance().getLocalExpansionManager().getExpansions();
+
+		if (index == null || expansions.size() != index.size()) {
+			index = new HashMap<>();
+
+			// MineAcademy edit: Case insensitive
+			for (final PlaceholderExpansion expansion : expansions)
+				index.put(expansion.getIdentifier().toLowerCase(), expansion);
+
+			expansionIndex = index;
+		}
+
+		return index;
+	}
+
+	/*
+	 * Invalidates the expansion index when PlaceholderAPI expansions change
+	 */
+	private static final class ExpansionListener implements Listener {
+
+		@EventHandler
+		public void onRegister(ExpansionRegisterEvent event) {
+			this.invalidate();
+		}
+
+		@EventHandler
+		public void onUnregister(ExpansionUnregisterEvent event) {
+			this.invalidate();
+		}
+
+		/*
+		 * PlaceholderAPI calls the events before it changes its expansions, so we invalidate
+		 * the index again a tick later in case it was rebuilt in between
+		 */
+		private void invalidate() {
+			expansionIndex = null;
+
+			Common.runLater(() -> expansionIndex = null);
+		}
+	}
+
+	/*
+	 * One watchdog shared by all variables in a single message, started on the
+	 * first variable that belongs to an expansion
+	 */
+	private static final class Watchdog {
+
+		private final OfflinePlayer player;
+		private final String text;
+
+		private volatile String variable;
+		private BukkitTask task;
+
+		Watchdog(@Nullable OfflinePlayer player, String text) {
+			this.player = player;
+			this.text = text;
+		}
+
+		void start(String variable) {
+			this.variable = variable;
+
+			if (this.task != null)
+				return;
+
+			// Wait then kill the thread to prevent server crashing
+			// on PlaceholderAPI variables hanging up on the main thread
+			final Thread currentThread = Thread.currentThread();
+			final boolean main = Bukkit.isPrimaryThread();
+
+			this.task = Common.runLater(main ? 30 : 80, () -> {
+				Common.logFramed(
+						"IMPORTANT: PREVENTED SERVER CRASH FROM PLACEHOLDERAPI",
+						"",
+						"Replacing PlaceholderAPI variables took over " + (main ? "1.5" : "4") + " sec",
+						"and was interrupted to prevent hanging the server.",
+						"",
+						"This is typically caused when a variable sends a",
+						"blocking HTTP request, such as checking stuff on",
+						"the Internet or resolving offline player names.",
+						"This is NOT an error in " + SimplePlugin.getNamed() + ", you need",
+						"to contact the placeholder expansion's author instead.",
+						"",
+						"Variable: " + this.variable,
+						"Text: " + this.text,
+						"Player: " + (this.player == null ? "none" : this.player.getName()));
+
+				currentThread.stop();
+			});
+		}
+
+		void cancel() {
+
+			// Indicate we no longer have to kill the thread.
+			if (this.task != null)
+				this.task.cancel();
+		}
 	}
 
 	final String replaceRelationPlaceholders(final Player one, final Player two, final String message) {
@@ -4,15 +4,24 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nullable;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineFactory;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
 
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
@@ -39,6 +48,47 @@ public final class JavaScriptExecutor {
 	 */
 	private static final ScriptEngine engine;
 
+	/**
+	 * The name of the permission checker we rewrite player.hasPermission("...") calls to
+	 */
+	private static final String PERMISSION_CHECKER = "_foHasPermission";
+
+	/**
+	 * The pattern matching player.hasPermission("...") calls in scripts
+	 */
+	private static final Pattern PERMISSION_PATTERN = Pattern.compile("player\\.hasPermission\\(\"([^\"]+)\"\\)");
+
+	/**
+	 * How many scripts to keep compiled or rewritten before we start over
+	 */
+	private static final int CACHE_LIMIT = 1000;
+
+	/**
+	 * Script source - Compiled script, only used when the engine is {@link Compilable}
+	 */
+	private static final Map<String, CompiledScript> compiledScripts = new ConcurrentHashMap<>();
+
+	/**
+	 * Script source - Script source with permission checks rewritten, see {@link #PERMISSION_CHECKER}
+	 */
+	private static final Map<String, String> rewrittenScripts = new ConcurrentHashMap<>();
+
+	/**
+	 * Idle script contexts, each having its own global scope, so that
+	 * scripts can be evaluated from multiple threads at once
+	 */
+	private static final Queue<ScriptContext> contextPool = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * How many contexts are idle in the pool
+	 */
+	private static final AtomicInteger contextPoolSize = new AtomicInteger();
+
+	/**
+	 * How many idle contexts we keep at most
+	 */
+	private static final int CONTEXT_POOL_LIMIT = Math.max(2, Runtime.getRuntime().availableProcessors());
+
 	// Load the engine
 	static {
 		Thread.currentThread().setContextClassLoader(SimplePlugin.class.getClassLoader());
@@ -129,15 +179,14 @@ public final class JavaScriptExecutor {
 		if (replacements == null)
 			replacements = new HashMap<>();
 
-		// Workaround hasPermission for null senders (i.e. Discord)
-		final Pattern pattern = Pattern.compile("player\\.hasPermission\\(\"([^\"]+)\"\\)");
-		final Matcher matcher = pattern.matcher(javascript);
+		// Workaround hasPermission for null senders (i.e. Discord), the permission
+		// is checked when the script runs so that the rewritten script can be cached
+		final String rewritten = rewritePermissions(javascript);
 
-		while (matcher.find()) {
-			final String permission = matcher.group(1);
-			final boolean hasPermission = sender == null ? false : sender.hasPermission(permission);
+		if (rewritten != javascript) {
+			javascript = rewritten;
 
-			javascript = javascript.replace(matcher.group(), String.valueOf(hasPermission));
+			replacements.put(PERMISSION_CHECKER, (Predicate<String>) permission -> sender != null && sender.hasPermission(permission));
 		}
 
 		// Find and replace all %syntax% and {syntax} variables since they were not replaced for Discord
@@ -177,6 +226,28 @@ public final class JavaScriptExecutor {
 		return run(javascript, replacements);
 	}
 
+	/*
+	 * Rewrites player.hasPermission("...") calls to our permission checker, returning
+	 * the same instance when the script has no such calls
+	 */
+	private static String rewritePermissions(String javascript) {
+		if (!javascript.contains("player.hasPermission("))
+			return javascript;
+
+		String rewritten = rewrittenScripts.get(javascript);
+
+		if (rewritten == null) {
+			rewritten = PERMISSION_PATTERN.matcher(javascript).replaceAll(PERMISSION_CHECKER + ".test(\"$1\")");
+
+			if (rewrittenScripts.size() >= CACHE_LIMIT)
+				rewrittenScripts.clear();
+
+			rewrittenScripts.put(javascript, rewritten);
+		}
+
+		return rewritten;
+	}
+
 	/*
 	 * We do not support variables when the message sender is Discord,
 	 * so just replace those that were not translated earlier with false value.
@@ -198,29 +269,33 @@ public final class JavaScriptExecutor {
 	 * @throws FoScriptException
 	 */
 	public static Object run(@NonNull String javascript, Map<String, Object> replacements) throws FoScriptException {
-		synchronized (SimplePlugin.getInstance()) {
-			if (replacements == null)
-				replacements = new HashMap<>();
+		if (replacements == null)
+			replacements = new HashMap<>();
 
-			// Mohist is unsupported
-			if (Bukkit.getName().equals("Mohist"))
-				return null;
+		// Mohist is unsupported
+		if (Bukkit.getName().equals("Mohist"))
+			return null;
 
-			// Speed up
-			if (javascript.equals("true") || javascript.equals("!false") || javascript.equals("yes"))
-				return true;
+		// Speed up
+		if (javascript.equals("true") || javascript.equals("!false") || javascript.equals("yes"))
+			return true;
 
-			if (javascript.equals("false") || javascript.equals("!true") || javascript.equals("no"))
-				return false;
+		if (javascript.equals("false") || javascript.equals("!true") || javascript.equals("no"))
+			return false;
 
-			if (engine == null) {
-				Common.warning("Not running script because JavaScript library is missing (try installing mineacademy.org/nashorn). Script: " + javascript);
+		if (engine == null) {
+			Common.warning("Not running script because JavaScript library is missing (try installing mineacademy.org/nashorn). Script: " + javascript);
 
-				return null;
-			}
+			return null;
+		}
+
+		final ScriptContext context = borrowContext();
 
-			// CLear past variables
-			engine.getBindings(ScriptContext.ENGINE_SCOPE).clear();
+		try {
+			final Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+
+			// Clear past variables
+			bindings.clear();
 
 			// Put new variables
 			for (final Map.Entry<String, Object> replacement : replacements.entrySet()) {
@@ -230,61 +305,128 @@ public final class JavaScriptExecutor {
 				final Object value = replacement.getValue();
 				Valid.checkNotNull(value, "Value can't be null in javascript variables for key " + key + ": " + replacements);
 
-				engine.put(key, value);
+				bindings.put(key, value);
 			}
 
-			try {
-				final Object result = engine.eval(javascript);
+			final CompiledScript compiled = compile(javascript);
+			final Object result = compiled != null ? compiled.eval(context) : engine.eval(javascript, context);
+
+			if (result instanceof String) {
+				String resultString = Common.stripColors((String) result).trim().toLowerCase();
 
-				if (result instanceof String) {
-					String resultString = Common.stripColors((String) result).trim().toLowerCase();
+				if (resultString.startsWith("\"") || resultString.startsWith("'"))
+					resultString = resultString.substring(1);
 
-					if (resultString.startsWith("\"") || resultString.startsWith("'"))
-						resultString = resultString.substring(1);
+				if (resultString.endsWith("\"") || resultString.endsWith("'"))
+					resultString = resultString.substring(0, resultString.length() - 1);
 
-					if (resultString.endsWith("\"") || resultString.endsWith("'"))
-						resultString = resultString.substring(0, resultString.length() - 1);
+				if (resultString.equals("true"))
+					return true;
 
-					if (resultString.equals("true"))
-						return true;
+				else if (resultString.equals("false"))
+					return false;
+			}
 
-					else if (resultString.equals("false"))
-						return false;
-				}
+			return result;
 
-				return result;
+		} catch (ClassCastException | ScriptException ex) {
 
-			} catch (ClassCastException | ScriptException ex) {
+			// Special support for throwing exceptions in the JS code so that users
+			// can send messages to player directly if upstream supports that
+			final String cause = ex.getCause() != null ? ex.getCause().toString() : "";
 
-				// Special support for throwing exceptions in the JS code so that users
-				// can send messages to player directly if upstream supports that
-				final String cause = ex.getCause() != null ? ex.getCause().toString() : "";
+			if (ex.getCause() != null && cause.contains("event handled")) {
+				final String[] errorMessageSplit = cause.contains("event handled: ") ? cause.split("event handled\\: ") : new String[0];
+				final Object sender = replacements.get("player");
 
-				if (ex.getCause() != null && cause.contains("event handled")) {
-					final String[] errorMessageSplit = cause.contains("event handled: ") ? cause.split("event handled\\: ") : new String[0];
-					final Object sender = replacements.get("player");
+				if (errorMessageSplit.length == 2 && sender instanceof CommandSender)
+					Common.tellNoPrefix((CommandSender) sender, errorMessageSplit[1]);
 
-					if (errorMessageSplit.length == 2 && sender instanceof CommandSender)
-						Common.tellNoPrefix((CommandSender) sender, errorMessageSplit[1]);
+				throw new EventHandledException(true);
+			}
 
-					throw new EventHandledException(true);
-				}
+			final String message = ex.toString();
+			final List<String> errorMessage = Common.newList("Error parsing JavaScript!");
 
-				final String message = ex.toString();
-				final List<String> errorMessage = Common.newList("Error parsing JavaScript!");
+			if (message.contains("Cannot cast org.openjdk.nashorn.internal.runtime.Undefined to org.bukkit.Statistic"))
+				errorMessage.add("Your code uses invalid Statistic enum for your MC version. Do NOT report this, check Bukkit javadocs.");
 
-				if (message.contains("Cannot cast org.openjdk.nashorn.internal.runtime.Undefined to org.bukkit.Statistic"))
-					errorMessage.add("Your code uses invalid Statistic enum for your MC version. Do NOT report this, check Bukkit javadocs.");
+			if (message.contains("ReferenceError:") && message.contains("is not defined"))
+				errorMessage.add("Invalid or unparsed variable!");
 
-				if (message.contains("ReferenceError:") && message.contains("is not defined"))
-					errorMessage.add("Invalid or unparsed variable!");
+			if (ex instanceof ScriptException)
+				errorMessage.add("Line: " + ((ScriptException) ex).getLineNumber() + ". Error: " + ex.getMessage());
+			else
+				errorMessage.add("Error: " + ex.getMessage());
+			throw new FoScriptException(String.join(" ", errorMessage), javascript, ex instanceof ScriptException ? ((ScriptException) ex).getLineNumber() : -1, ex);
 
-				if (ex instanceof ScriptException)
-					errorMessage.add("Line: " + ((ScriptException) ex).getLineNumber() + ". Error: " + ex.getMessage());
-				else
-					errorMessage.add("Error: " + ex.getMessage());
-				throw new FoScriptException(String.join(" ", errorMessage), javascript, ex instanceof ScriptException ? ((ScriptException) ex).getLineNumber() : -1, ex);
+		} finally {
+			releaseContext(context);
+		}
+	}
+
+	/*
+	 * Return the compiled script from cache or compile it now, or null if the engine can't compile
+	 */
+	private static CompiledScript compile(String javascript) throws ScriptException {
+		if (!(engine instanceof Compilable))
+			return null;
+
+		CompiledScript compiled = compiledScripts.get(javascript);
+
+		if (compiled == null) {
+
+			// Compiling is not guaranteed to be thread-safe, evaluating compiled scripts in separate contexts is
+			synchronized (engine) {
+				compiled = ((Compilable) engine).compile(javascript);
 			}
+
+			if (compiledScripts.size() >= CACHE_LIMIT)
+				compiledScripts.clear();
+
+			compiledScripts.put(javascript, compiled);
 		}
+
+		return compiled;
+	}
+
+	/*
+	 * Take an idle context from the pool or create a new one with its own global scope
+	 */
+	private static ScriptContext borrowContext() {
+		final ScriptContext pooled = contextPool.poll();
+
+		if (pooled != null) {
+			contextPoolSize.decrementAndGet();
+
+			return pooled;
+		}
+
+		final ScriptContext context = new SimpleScriptContext();
+
+		context.setBindings(engine.createBindings(), ScriptContext.ENGINE_SCOPE);
+		context.setBindings(engine.getBindings(ScriptContext.GLOBAL_SCOPE), ScriptContext.GLOBAL_SCOPE);
+
+		return context;
+	}
+
+	/*
+	 * Return the context to the pool unless the pool is full
+	 */
+	private static void releaseContext(ScriptContext context) {
+		if (contextPoolSize.incrementAndGet() <= CONTEXT_POOL_LIMIT)
+			contextPool.offer(context);
+		else
+			contextPoolSize.decrementAndGet();
+	}
+
+	/**
+	 * Removes all compiled scripts and idle script contexts, they will be created again when needed
+	 */
+	public static void clearCache() {
+		compiledScripts.clear();
+		rewrittenScripts.clear();
+		contextPool.clear();
+		contextPoolSize.set(0);
 	}
-}
\ No newline at end of file
+}
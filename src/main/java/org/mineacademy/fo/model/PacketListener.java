@@ -2,10 +2,11 @@ package org.mineacademy.fo.model;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import org.bukkit.entity.Player;
@@ -36,6 +37,8 @@ import com.comphenix.protocol.wrappers.WrappedServerPing;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import net.md_5.bungee.api.chat.BaseComponent;
 
 /**
@@ -185,45 +188,51 @@ public abstract class PacketListener {
 		/**
 		 * Players being processed RIGHT NOW inside the method. Prevents dead loop.
 		 */
-		private final Set<String> processedPlayers = new HashSet<>();
+		private final Set<String> processedPlayers = ConcurrentHashMap.newKeySet();
 
 		/**
-		 * The event field for convenient calling in the overridable methods
+		 * The packet being processed on the current thread, ProtocolLib
+		 * may call us from multiple threads at once
 		 */
-		@Getter
-		private PacketEvent event;
+		private final ThreadLocal<ChatContext> context = new ThreadLocal<>();
 
 		/**
-		 * The player field you can use below
+		 * Raw json message - The result of processing it, see {@link #getResultCacheMillis()}
 		 */
-		@Getter
-		private Player player;
+		private final Map<String, ChatResult> resultCache = new ConcurrentHashMap<>();
 
 		/**
-		 * The currently filtered json message
+		 * Support 1.19+ system chat
 		 */
-		private String jsonMessage;
+		private final boolean systemChat = MinecraftVersion.atLeast(V.v1_19);
 
 		/**
-		 * Support md_5 BaseComponent API
+		 * Create new chat listener
 		 */
-		private boolean isBaseComponent = false;
+		public SimpleChatAdapter() {
+			super(ListenerPriority.HIGHEST, MinecraftVersion.atLeast(V.v1_19) ? PacketType.Play.Server.SYSTEM_CHAT : PacketType.Play.Server.CHAT);
+		}
 
 		/**
-		 * Support Adventure PaperSpigot library
+		 * The event field for convenient calling in the overridable methods
+		 *
+		 * @return
 		 */
-		private boolean adventure = false;
+		public PacketEvent getEvent() {
+			final ChatContext context = this.context.get();
 
-		/**
-		 * Support 1.19+ system chat
-		 */
-		private final boolean systemChat = MinecraftVersion.atLeast(V.v1_19);
+			return context != null ? context.getEvent() : null;
+		}
 
 		/**
-		 * Create new chat listener
+		 * The player field you can use below
+		 *
+		 * @return
 		 */
-		public SimpleChatAdapter() {
-			super(ListenerPriority.HIGHEST, MinecraftVersion.atLeast(V.v1_19) ? PacketType.Play.Server.SYSTEM_CHAT : PacketType.Play.Server.CHAT);
+		public Player getPlayer() {
+			final ChatContext context = this.context.get();
+
+			return context != null ? context.getPlayer() : null;
 		}
 
 		@Override
@@ -231,22 +240,20 @@ public abstract class PacketListener {
 			if (event.getPlayer() == null)
 				return;
 
-			this.event = event;
-			this.player = event.getPlayer();
-
-			final String playerName = event.getPlayer().getName();
+			final Player player = event.getPlayer();
+			final String playerName = player.getName();
 			final PacketContainer packet = event.getPacket();
 
 			// Ignore temporary players
 			try {
-				this.player.getUniqueId();
+				player.getUniqueId();
 
 			} catch (final UnsupportedOperationException ex) {
 				return;
 			}
 
 			// Ignore dummy instances and rare reload case
-			if (!this.player.isOnline() || SimplePlugin.isReloading())
+			if (!player.isOnline() || SimplePlugin.isReloading())
 				return;
 
 			// Prevent deadlock
@@ -258,12 +265,32 @@ public abstract class PacketListener {
 					!packet.getBooleans().getFields().isEmpty() && packet.getBooleans().read(0) == true)
 				return;
 
+			final ChatContext context = new ChatContext(event, player);
+			final ChatContext previousContext = this.context.get();
+
 			// Lock processing to one instance only to prevent another packet filtering
 			// in a filtering
 			try {
 				this.processedPlayers.add(playerName);
+				this.context.set(context);
+
+				final String legacyText = this.compileChatMessage(context);
+				final ChatResult cachedResult = context.getCachedResult();
+
+				// The same message was processed for another player a moment ago
+				if (cachedResult != null) {
+					if (cachedResult.isCancelled())
+						event.setCancelled(true);
+
+					else if (cachedResult.getEditedJson() != null) {
+						context.setJsonMessage(cachedResult.getEditedJson());
+
+						this.writeJsonMessage(context);
+					}
+
+					return;
+				}
 
-				final String legacyText = this.compileChatMessage(event);
 				String parsedText = legacyText;
 
 				try {
@@ -272,7 +299,7 @@ public abstract class PacketListener {
 				} catch (final RegexTimeoutException ex) {
 					// Such errors mean the parsed message took too long to process.
 					// Only show such errors every 30 minutes to prevent console spam
-					Common.logTimed(1800, "&cWarning: &fPacket message '" + Common.limit(this.jsonMessage, 500)
+					Common.logTimed(1800, "&cWarning: &fPacket message '" + Common.limit(context.getJsonMessage(), 500)
 							+ "' (possibly longer) took too long time to edit received message and was ignored."
 							+ " This message only shows once per 30 minutes when that happens. For most cases, this can be ignored.");
 
@@ -281,27 +308,36 @@ public abstract class PacketListener {
 				} catch (final EventHandledException ex) {
 					event.setCancelled(true);
 
+					this.cacheResult(context, true, null);
+
 					return;
 				}
 
-				if (this.jsonMessage != null && !this.jsonMessage.isEmpty())
-					this.jsonMessage = this.onJsonMessage(this.jsonMessage);
+				if (context.getJsonMessage() != null && !context.getJsonMessage().isEmpty())
+					context.setJsonMessage(this.onJsonMessage(context.getJsonMessage()));
+
+				final boolean edited = !legacyText.equals(parsedText);
+
+				if (edited)
+					this.writeEditedMessage(parsedText, context);
 
-				if (!legacyText.equals(parsedText))
-					this.writeEditedMessage(parsedText, event);
+				this.cacheResult(context, false, edited ? context.getJsonMessage() : null);
 
 			} finally {
-				this.processedPlayers.remove(this.player.getName());
+				this.processedPlayers.remove(playerName);
+
+				if (previousContext != null)
+					this.context.set(previousContext);
+				else
+					this.context.remove();
 			}
 		}
 
 		/*
 		 * Read the chat message in unpacked format from the event
 		 */
-		private String compileChatMessage(PacketEvent event) {
-
-			// Reset
-			this.jsonMessage = null;
+		private String compileChatMessage(ChatContext context) {
+			final PacketEvent event = context.getEvent();
 
 			// Components
 			if (MinecraftVersion.atLeast(V.v1_7)) {
@@ -311,14 +347,14 @@ public abstract class PacketListener {
 
 					try {
 						// Minecraft 1.20.4+ uses Component field instead of text
-						this.jsonMessage = event.getPacket().getChatComponents().read(0).getJson();
+						context.setJsonMessage(event.getPacket().getChatComponents().read(0).getJson());
 
 					} catch (final Exception ex) {
-						this.jsonMessage = event.getPacket().getStrings().read(0);
+						context.setJsonMessage(event.getPacket().getStrings().read(0));
 					}
 
-					if (this.jsonMessage != null)
-						return Remain.toLegacyText(this.jsonMessage, false);
+					if (context.getJsonMessage() != null)
+						return this.toLegacyText(context);
 
 					try {
 						final StructureModifier<Object> adventureModifier = event.getPacket().getModifier().withType(AdventureComponentConverter.getComponentClass());
@@ -333,7 +369,7 @@ public abstract class PacketListener {
 							final Method gsonMethod = ReflectionUtil.getMethod(gsonInstance.getClass(), "serialize", componentClass);
 
 							final String json = ReflectionUtil.invoke(gsonMethod, gsonInstance, comp);
-							this.jsonMessage = WrappedChatComponent.fromJson(json).getJson();
+							context.setJsonMessage(WrappedChatComponent.fromJson(json).getJson());
 						}
 
 					} catch (final Throwable ignored) {
@@ -368,7 +404,7 @@ public abstract class PacketListener {
 					}
 
 					if (component != null)
-						this.jsonMessage = component.getJson();
+						context.setJsonMessage(component.getJson());
 
 					// Md_5 way of dealing with packets
 					else if (packet.size() > 1) {
@@ -379,13 +415,13 @@ public abstract class PacketListener {
 							secondField = packet.readSafely(2);
 
 							if (secondField != null)
-								this.adventure = true;
+								context.setAdventure(true);
 						}
 
 						if (secondField instanceof BaseComponent[]) {
-							this.jsonMessage = Remain.toJson((BaseComponent[]) secondField);
+							context.setJsonMessage(Remain.toJson((BaseComponent[]) secondField));
 
-							this.isBaseComponent = true;
+							context.setBaseComponent(true);
 						}
 					}
 				}
@@ -393,18 +429,18 @@ public abstract class PacketListener {
 
 			// No components for this MC version
 			else
-				this.jsonMessage = event.getPacket().getStrings().read(0);
+				context.setJsonMessage(event.getPacket().getStrings().read(0));
 
-			if (this.jsonMessage != null && !this.jsonMessage.isEmpty())
+			if (context.getJsonMessage() != null && !context.getJsonMessage().isEmpty())
 				// Only check valid messages, skipping those over 50k since it would cause rules
 				// to take too long and overflow. 99% packets are below this size, it may even be
 				// that such oversized packets are maliciously sent so we protect the server from freeze
-				if (this.jsonMessage.length() < 50_000) {
+				if (context.getJsonMessage().length() < 50_000) {
 					final String legacyText;
 
 					// Catch errors from other plugins and silence them
 					try {
-						legacyText = Remain.toLegacyText(this.jsonMessage, false);
+						legacyText = this.toLegacyText(context);
 
 					} catch (final Throwable t) {
 						return "";
@@ -416,6 +452,49 @@ public abstract class PacketListener {
 			return "";
 		}
 
+		/*
+		 * Converts the json message to legacy text, or reuses the result of
+		 * processing the same json message if it is cached
+		 */
+		private String toLegacyText(ChatContext context) {
+			final String jsonMessage = context.getJsonMessage();
+
+			if (this.getResultCacheMillis() > 0) {
+				final ChatResult cachedResult = this.resultCache.get(jsonMessage);
+
+				if (cachedResult != null && System.currentTimeMillis() < cachedResult.getExpiresAt()) {
+					context.setCachedResult(cachedResult);
+
+					return cachedResult.getLegacyText();
+				}
+
+				context.setRawJsonMessage(jsonMessage);
+			}
+
+			final String legacyText = Remain.toLegacyText(jsonMessage, false);
+
+			context.setLegacyText(legacyText);
+			return legacyText;
+		}
+
+		/*
+		 * Remembers the result of processing the raw json message if caching is enabled
+		 */
+		private void cacheResult(ChatContext context, boolean cancelled, String editedJson) {
+			final long cacheMillis = this.getResultCacheMillis();
+
+			if (cacheMillis <= 0 || context.getRawJsonMessage() == null)
+				return;
+
+			final long now = System.currentTimeMillis();
+
+			// Clean expired results once the cache grows
+			if (this.resultCache.size() > 200)
+				this.resultCache.values().removeIf(cached -> now >= cached.getExpiresAt());
+
+			this.resultCache.put(context.getRawJsonMessage(), new ChatResult(cancelled, editedJson, now + cacheMillis, context.getLegacyText()));
+		}
+
 		/*
 		 * Helper method to get content of all children of the given component
 		 */
@@ -437,11 +516,19 @@ public abstract class PacketListener {
 		/*
 		 * Writes the edited message as JSON format from the event
 		 */
-		private void writeEditedMessage(String message, PacketEvent event) {
-			final PacketContainer packet = event.getPacket();
-
+		private void writeEditedMessage(String message, ChatContext context) {
 			if (!this.editJson())
-				this.jsonMessage = Remain.toJson(message);
+				context.setJsonMessage(Remain.toJson(message));
+
+			this.writeJsonMessage(context);
+		}
+
+		/*
+		 * Writes the json message from the context into the packet
+		 */
+		private void writeJsonMessage(ChatContext context) {
+			final PacketContainer packet = context.getEvent().getPacket();
+			final String jsonMessage = context.getJsonMessage();
 
 			if (this.systemChat) {
 
@@ -458,20 +545,20 @@ public abstract class PacketListener {
 				}
 
 				try {
-					packet.getChatComponents().write(0, WrappedChatComponent.fromJson(this.jsonMessage));
+					packet.getChatComponents().write(0, WrappedChatComponent.fromJson(jsonMessage));
 
 				} catch (final FieldAccessException t) {
-					packet.getStrings().write(0, this.jsonMessage);
+					packet.getStrings().write(0, jsonMessage);
 				}
 
-			} else if (this.isBaseComponent)
-				packet.getModifier().writeSafely(this.adventure ? 2 : 1, Remain.toComponent(this.jsonMessage));
+			} else if (context.isBaseComponent())
+				packet.getModifier().writeSafely(context.isAdventure() ? 2 : 1, Remain.toComponent(jsonMessage));
 
 			else if (MinecraftVersion.atLeast(V.v1_7))
-				packet.getChatComponents().writeSafely(0, WrappedChatComponent.fromJson(this.jsonMessage));
+				packet.getChatComponents().writeSafely(0, WrappedChatComponent.fromJson(jsonMessage));
 
 			else
-				packet.getStrings().writeSafely(0, SerializedMap.of("text", this.jsonMessage.substring(1, this.jsonMessage.length() - 1)).toJson());
+				packet.getStrings().writeSafely(0, SerializedMap.of("text", jsonMessage.substring(1, jsonMessage.length() - 1)).toJson());
 		}
 
 		/**
@@ -510,6 +597,88 @@ public abstract class PacketListener {
 		protected boolean editJson() {
 			return false;
 		}
+
+		/**
+		 * How long to reuse the result of processing a message for other players
+		 * receiving the exact same message, such as broadcasts. 0 (default) = disabled.
+		 * <p>
+		 * Only enable this if {@link #onMessage(String)} and {@link #onJsonMessage(String)}
+		 * do not depend on the player receiving the message.
+		 *
+		 * @return
+		 */
+		protected long getResultCacheMillis() {
+			return 0;
+		}
+	}
+
+	/*
+	 * The state of a single chat packet being processed
+	 */
+	@Getter
+	@Setter
+	@RequiredArgsConstructor
+	private static final class ChatContext {
+		private final PacketEvent event;
+		private final Player player;
+
+		/**
+		 * The currently filtered json message
+		 */
+		private String jsonMessage;
+
+		/**
+		 * The json message as read from the packet, only set when caching results
+		 */
+		private String rawJsonMessage;
+
+		/**
+		 * The json message converted to legacy text
+		 */
+		private String legacyText;
+
+		/**
+		 * The result of processing the same message earlier, if any
+		 */
+		private ChatResult cachedResult;
+
+		/**
+		 * Support md_5 BaseComponent API
+		 */
+		private boolean baseComponent = false;
+
+		/**
+		 * Support Adventure PaperSpigot library
+		 */
+		private boolean adventure = false;
+	}
+
+	/*
+	 * The result of processing a chat message we can reuse for other players
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	private static final class ChatResult {
+
+		/**
+		 * Whether the packet was cancelled
+		 */
+		private final boolean cancelled;
+
+		/**
+		 * The json message to write to the packet, or null if unchanged
+		 */
+		private final String editedJson;
+
+		/**
+		 * When this result expires
+		 */
+		private final long expiresAt;
+
+		/**
+		 * The legacy text of the raw json message
+		 */
+		private final String legacyText;
 	}
 
 	/**
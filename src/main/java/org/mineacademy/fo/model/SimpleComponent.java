@@ -2,8 +2,11 @@ package org.mineacademy.fo.model;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nullable;
@@ -384,6 +387,37 @@ public final class SimpleComponent implements ConfigSerializable {
 		return Common.getOrDefault(preparedComponent, new TextComponent(""));
 	}
 
+	/*
+	 * Builds only the given visible parts without checking them for the receiver again
+	 */
+	private TextComponent build(final List<Part> parts, final BitSet visibleParts) {
+		TextComponent preparedComponent = null;
+
+		for (int index = 0; index < parts.size(); index++) {
+			final TextComponent component = visibleParts.get(index) ? parts.get(index).toTextComponent(false, null) : null;
+
+			if (component != null)
+				if (preparedComponent == null)
+					preparedComponent = component;
+				else
+					this.addExtra(preparedComponent, component);
+		}
+
+		return Common.getOrDefault(preparedComponent, new TextComponent(""));
+	}
+
+	/*
+	 * Return all past components and the current component
+	 */
+	private List<Part> getParts() {
+		final List<Part> parts = new ArrayList<>(this.pastComponents);
+
+		if (this.currentComponent != null)
+			parts.add(this.currentComponent);
+
+		return parts;
+	}
+
 	/*
 	 * Mostly resolving some ancient MC version incompatibility: "UnsupportedOperationException"
 	 */
@@ -466,45 +500,118 @@ public final class SimpleComponent implements ConfigSerializable {
 	 * @param receivers
 	 */
 	public <T extends CommandSender> void sendAs(@Nullable final CommandSender sender, final Iterable<T> receivers) {
+		for (final CommandSender receiver : receivers)
+			this.sendTo(sender, receiver, this.build(receiver));
+	}
+
+	/**
+	 * Sends the complete {@link SimpleComponent} to many receivers at once, such as
+	 * for global announcements, see {@link #broadcastAs(CommandSender, Iterable)}
+	 *
+	 * @param <T>
+	 * @param receivers
+	 */
+	public <T extends CommandSender> void broadcast(final Iterable<T> receivers) {
+		this.broadcastAs(null, receivers);
+	}
+
+	/**
+	 * Sends the complete {@link SimpleComponent} to many receivers at once, such as
+	 * for global announcements.
+	 * <p>
+	 * Receivers are grouped by which parts they can see (view permission and condition)
+	 * and each group only builds and serializes the component once, instead of
+	 * once for every receiver as in {@link #sendAs(CommandSender, Iterable)}.
+	 * <p>
+	 * Receivers still get their own copy when relation placeholders or
+	 * {@link SimpleComponentSendEvent} apply to them.
+	 *
+	 * @param <T>
+	 * @param sender
+	 * @param receivers
+	 */
+	public <T extends CommandSender> void broadcastAs(@Nullable final CommandSender sender, final Iterable<T> receivers) {
+		final List<Part> parts = this.getParts();
+		final Map<BitSet, List<CommandSender>> groups = new LinkedHashMap<>();
+
 		for (final CommandSender receiver : receivers) {
+			final BitSet visibleParts = new BitSet(parts.size());
+
+			for (int index = 0; index < parts.size(); index++)
+				if (parts.get(index).canSendTo(receiver))
+					visibleParts.set(index);
 
-			TextComponent component = this.build(receiver);
+			groups.computeIfAbsent(visibleParts, key -> new ArrayList<>()).add(receiver);
+		}
+
+		for (final Map.Entry<BitSet, List<CommandSender>> group : groups.entrySet()) {
+			final TextComponent component = this.build(parts, group.getKey());
 
-			if (receiver instanceof Player && sender instanceof Player)
-				this.setRelationPlaceholders(component, (Player) receiver, (Player) sender);
+			String legacy = null;
+			int jsonLength = -1;
 
-			if (this.firingEvent) {
-				final SimpleComponentSendEvent event = new SimpleComponentSendEvent(sender, receiver, component);
+			for (final CommandSender receiver : group.getValue()) {
+
+				// The component will be edited for this receiver only
+				if (this.firingEvent || receiver instanceof Player && sender instanceof Player) {
+					this.sendTo(sender, receiver, new TextComponent(component));
 
-				if (!Common.callEvent(event))
 					continue;
+				}
 
-				component = event.getComponent();
+				if (legacy == null) {
+					legacy = Common.colorize(component.toLegacyText());
+					jsonLength = STRIP_OVERSIZED_COMPONENTS ? Remain.toJson(component).length() + 1 : 0;
+				}
+
+				this.sendTo(receiver, component, legacy, jsonLength);
 			}
+		}
+	}
 
-			final String legacy = Common.colorize(component.toLegacyText());
+	/*
+	 * Sends the component built for the receiver, replacing relation placeholders and calling the event
+	 */
+	private void sendTo(@Nullable final CommandSender sender, final CommandSender receiver, TextComponent component) {
+		if (receiver instanceof Player && sender instanceof Player)
+			this.setRelationPlaceholders(component, (Player) receiver, (Player) sender);
 
-			if (Common.stripColors(legacy).trim().isEmpty() && this.ignoreEmpty) {
-				Debugger.debug("component", "Message is empty, skipping.");
+		if (this.firingEvent) {
+			final SimpleComponentSendEvent event = new SimpleComponentSendEvent(sender, receiver, component);
 
-				continue;
-			}
+			if (!Common.callEvent(event))
+				return;
 
-			// Prevent clients being kicked out, so we just send plain message instead
-			if (STRIP_OVERSIZED_COMPONENTS && Remain.toJson(component).length() + 1 >= Short.MAX_VALUE) {
-				if (legacy.length() + 1 >= Short.MAX_VALUE)
-					Common.warning("JSON Message to " + receiver.getName() + " was too large and could not be sent: '" + legacy + "'");
+			component = event.getComponent();
+		}
 
-				else {
-					final int oversize = Remain.toJson(component).length() + 1 - Short.MAX_VALUE;
-					Common.warning("JSON Message to " + receiver.getName() + " was " + oversize + " bytes oversize, removing interactive elements to avoid kick. Sending plain: '" + legacy + "'");
+		this.sendTo(receiver, component, Common.colorize(component.toLegacyText()), STRIP_OVERSIZED_COMPONENTS ? Remain.toJson(component).length() + 1 : 0);
+	}
 
-					receiver.sendMessage(legacy);
-				}
+	/*
+	 * Sends the finished component, or its legacy text if the json is too long
+	 */
+	private void sendTo(final CommandSender receiver, final TextComponent component, final String legacy, final int jsonLength) {
+		if (Common.stripColors(legacy).trim().isEmpty() && this.ignoreEmpty) {
+			Debugger.debug("component", "Message is empty, skipping.");
 
-			} else
-				Remain.sendComponent(receiver, component);
+			return;
 		}
+
+		// Prevent clients being kicked out, so we just send plain message instead
+		if (STRIP_OVERSIZED_COMPONENTS && jsonLength >= Short.MAX_VALUE) {
+			if (legacy.length() + 1 >= Short.MAX_VALUE)
+				Common.warning("JSON Message to " + receiver.getName() + " was too large and could not be sent: '" + legacy + "'");
+
+			else {
+				final int oversize = jsonLength - Short.MAX_VALUE;
+				Common.warning("JSON Message to " + receiver.getName() + " was " + oversize + " bytes oversize, removing interactive elements to avoid kick. Sending plain: '" + legacy + "'");
+
+				receiver.sendMessage(legacy);
+			}
+
+		} else
+			Remain.sendComponent(receiver, component);
 	}
 
 	/*
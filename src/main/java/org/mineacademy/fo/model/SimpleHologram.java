@@ -5,19 +5,33 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bukkit.Location;
 import org.bukkit.entity.ArmorStand;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitTask;
 import org.mineacademy.fo.Common;
+import org.mineacademy.fo.MinecraftVersion;
+import org.mineacademy.fo.MinecraftVersion.V;
 import org.mineacademy.fo.Valid;
 import org.mineacademy.fo.remain.CompMaterial;
 import org.mineacademy.fo.remain.CompParticle;
 import org.mineacademy.fo.remain.Remain;
 
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.wrappers.WrappedChatComponent;
+import com.comphenix.protocol.wrappers.WrappedDataValue;
+import com.comphenix.protocol.wrappers.WrappedDataWatcher;
+import com.comphenix.protocol.wrappers.WrappedDataWatcher.Registry;
+import com.comphenix.protocol.wrappers.WrappedDataWatcher.WrappedDataWatcherObject;
+
 import lombok.Getter;
 import lombok.Setter;
 
@@ -33,6 +47,30 @@ public abstract class SimpleHologram {
 	@Setter
 	private static double loreLineHeight = 0.26D;
 
+	/**
+	 * How far players see virtual lore lines, in blocks, see {@link #setVirtual(boolean)}
+	 */
+	@Getter
+	@Setter
+	private static int virtualViewDistance = 48;
+
+	/**
+	 * How often we check which players are close enough to see virtual lore lines, in ticks
+	 */
+	@Getter
+	@Setter
+	private static int virtualVisibilityPeriod = 10;
+
+	/**
+	 * Entity ids for virtual lore lines, counting down from the top to stay away from real entities
+	 */
+	private static final AtomicInteger virtualEntityIds = new AtomicInteger(Integer.MAX_VALUE);
+
+	/**
+	 * How many ticks passed since we last checked virtual lore visibility
+	 */
+	private static int ticksSinceVisibilityCheck = 0;
+
 	/**
 	 * A registry of created animated items
 	 */
@@ -67,6 +105,22 @@ public abstract class SimpleHologram {
 	@Getter
 	private final List<Tuple<CompParticle, Object>> particles = new ArrayList<>();
 
+	/**
+	 * The client-side only lore lines when this hologram is virtual
+	 */
+	private final List<VirtualLine> virtualLines = new ArrayList<>();
+
+	/**
+	 * Players that were sent the virtual lore lines
+	 */
+	private final Set<UUID> virtualViewers = new HashSet<>();
+
+	/**
+	 * Send lore lines as client-side only entities through packets instead of spawning armor stands
+	 */
+	@Getter
+	private boolean virtual = false;
+
 	/**
 	 * The displayed entity
 	 */
@@ -102,11 +156,30 @@ public abstract class SimpleHologram {
 		tickingTask = scheduleTickingTask();
 	}
 
+	/**
+	 * Forget that the player was sent virtual lore lines since their client dropped them,
+	 * such as after quitting, respawning or changing worlds, so that they are sent again
+	 * on the next visibility check
+	 *
+	 * @deprecated internal use only, do not call
+	 * @param player
+	 */
+	@Deprecated
+	public static void onViewerReset(Player player) {
+		for (final SimpleHologram model : registeredItems)
+			if (model.virtual)
+				model.virtualViewers.remove(player.getUniqueId());
+	}
+
 	/*
 	 * Helper method to start main anim ticking task
 	 */
 	private static BukkitTask scheduleTickingTask() {
 		return Common.runTimer(1, () -> {
+			final boolean checkVisibility = ++ticksSinceVisibilityCheck >= virtualVisibilityPeriod;
+
+			if (checkVisibility)
+				ticksSinceVisibilityCheck = 0;
 
 			for (final Iterator<SimpleHologram> it = registeredItems.iterator(); it.hasNext();) {
 				final SimpleHologram model = it.next();
@@ -117,8 +190,12 @@ public abstract class SimpleHologram {
 						model.getEntity().remove();
 
 						it.remove();
-					} else
+					} else {
 						model.tick();
+
+						if (checkVisibility && model.virtual)
+							model.updateVirtualViewers();
+					}
 			}
 		});
 	}
@@ -134,7 +211,30 @@ public abstract class SimpleHologram {
 		this.entity = this.createEntity();
 		Valid.checkNotNull(this.entity, "Failed to spawn entity from " + this);
 
-		this.drawLore(this.lastTeleportLocation);
+		this.drawLore(this.lastTeleportLocation.clone());
+
+		return this;
+	}
+
+	/**
+	 * Set if lore lines should be client-side only entities sent through packets
+	 * instead of real armor stands. Virtual lines do not tick on the server and
+	 * are only sent to players within {@link #getVirtualViewDistance()}.
+	 * <p>
+	 * Requires ProtocolLib and Minecraft 1.13+, call this before {@link #spawn()}.
+	 *
+	 * @param virtual
+	 * @return
+	 */
+	public final SimpleHologram setVirtual(boolean virtual) {
+		Valid.checkBoolean(!this.isSpawned(), "Cannot change virtual mode of " + this + " after it was spawned!");
+
+		if (virtual) {
+			Valid.checkBoolean(HookManager.isProtocolLibLoaded(), "Virtual holograms require ProtocolLib!");
+			Valid.checkBoolean(MinecraftVersion.atLeast(V.v1_13), "Virtual holograms require Minecraft 1.13 or newer!");
+		}
+
+		this.virtual = virtual;
 
 		return this;
 	}
@@ -156,6 +256,17 @@ public abstract class SimpleHologram {
 		if (this.entity instanceof ArmorStand && ((ArmorStand) this.entity).isSmall())
 			location = location.add(0, -0.5, 0);
 
+		if (this.virtual) {
+			for (final String loreLine : this.loreLines) {
+				this.virtualLines.add(new VirtualLine(virtualEntityIds.getAndDecrement(), UUID.randomUUID(), Common.colorize(loreLine), location.clone()));
+
+				location = location.subtract(0, loreLineHeight, 0);
+			}
+
+			this.updateVirtualViewers();
+			return;
+		}
+
 		for (final String loreLine : this.loreLines) {
 			final ArmorStand armorStand = (ArmorStand) location.getWorld().spawnEntity(location, EntityType.ARMOR_STAND);
 
@@ -178,8 +289,20 @@ public abstract class SimpleHologram {
 		if (this.pendingTeleport != null) {
 			this.entity.teleport(this.pendingTeleport);
 
-			for (final ArmorStand loreEntity : this.loreEntities)
-				loreEntity.teleport(this.pendingTeleport);
+			// Keep lore lines stacked below each other same as when drawn
+			Location loreLocation = this.pendingTeleport.clone();
+
+			if (this.entity instanceof ArmorStand && ((ArmorStand) this.entity).isSmall())
+				loreLocation = loreLocation.add(0, -0.5, 0);
+
+			for (final ArmorStand loreEntity : this.loreEntities) {
+				loreEntity.teleport(loreLocation.clone());
+
+				loreLocation = loreLocation.subtract(0, loreLineHeight, 0);
+			}
+
+			if (this.virtual)
+				this.teleportVirtualLines(this.pendingTeleport.clone());
 
 			this.pendingTeleport = null;
 			return;
@@ -199,6 +322,94 @@ public abstract class SimpleHologram {
 		}
 	}
 
+	/*
+	 * Shows virtual lines to players that came close and hides them from players that went away
+	 */
+	private void updateVirtualViewers() {
+		final Location location = this.lastTeleportLocation;
+		final double maxDistanceSquared = virtualViewDistance * virtualViewDistance;
+
+		final Set<UUID> nearby = new HashSet<>();
+
+		for (final Player player : location.getWorld().getPlayers())
+			if (player.getLocation().distanceSquared(location) <= maxDistanceSquared) {
+				nearby.add(player.getUniqueId());
+
+				if (this.virtualViewers.add(player.getUniqueId()))
+					for (final VirtualLine line : this.virtualLines)
+						line.show(player);
+			}
+
+		for (final Iterator<UUID> it = this.virtualViewers.iterator(); it.hasNext();) {
+			final UUID viewerId = it.next();
+
+			if (!nearby.contains(viewerId)) {
+				final Player viewer = Remain.getPlayerByUUID(viewerId);
+
+				if (viewer != null && viewer.isOnline())
+					this.destroyVirtualLines(viewer);
+
+				it.remove();
+			}
+		}
+	}
+
+	/*
+	 * Moves virtual lines below the given location, sending all moves to each viewer at once
+	 */
+	private void teleportVirtualLines(Location location) {
+		if (this.entity instanceof ArmorStand && ((ArmorStand) this.entity).isSmall())
+			location = location.add(0, -0.5, 0);
+
+		for (final VirtualLine line : this.virtualLines) {
+			line.setLocation(location.clone());
+
+			location = location.subtract(0, loreLineHeight, 0);
+		}
+
+		for (final UUID viewerId : this.virtualViewers) {
+			final Player viewer = Remain.getPlayerByUUID(viewerId);
+
+			if (viewer != null && viewer.isOnline())
+				for (final VirtualLine line : this.virtualLines)
+					line.teleport(viewer);
+		}
+	}
+
+	/*
+	 * Removes virtual lines from the given player's client
+	 */
+	private void destroyVirtualLines(Player player) {
+		if (this.virtualLines.isEmpty())
+			return;
+
+		final PacketContainer packet = new PacketContainer(PacketType.Play.Server.ENTITY_DESTROY);
+		final List<Integer> entityIds = new ArrayList<>();
+
+		for (final VirtualLine line : this.virtualLines)
+			entityIds.add(line.getEntityId());
+
+		// 1.17+ uses a list, 1.17.0 alone a single id, older versions an array
+		if (packet.getIntLists().size() > 0)
+			packet.getIntLists().write(0, entityIds);
+
+		else if (packet.getIntegerArrays().size() > 0)
+			packet.getIntegerArrays().write(0, entityIds.stream().mapToInt(Integer::intValue).toArray());
+
+		else {
+			for (final int entityId : entityIds) {
+				final PacketContainer singlePacket = new PacketContainer(PacketType.Play.Server.ENTITY_DESTROY);
+
+				singlePacket.getIntegers().write(0, entityId);
+				HookManager.sendPacket(player, singlePacket);
+			}
+
+			return;
+		}
+
+		HookManager.sendPacket(player, packet);
+	}
+
 	/**
 	 * Called automatically where you can animate this armor stand
 	 */
@@ -219,6 +430,18 @@ public abstract class SimpleHologram {
 	 */
 	public final void removeLore() {
 		this.loreEntities.forEach(ArmorStand::remove);
+
+		if (this.virtual) {
+			for (final UUID viewerId : this.virtualViewers) {
+				final Player viewer = Remain.getPlayerByUUID(viewerId);
+
+				if (viewer != null && viewer.isOnline())
+					this.destroyVirtualLines(viewer);
+			}
+
+			this.virtualViewers.clear();
+			this.virtualLines.clear();
+		}
 	}
 
 	/**
@@ -281,7 +504,7 @@ public abstract class SimpleHologram {
 		Valid.checkBoolean(this.pendingTeleport == null, this + " is already pending teleport to " + this.pendingTeleport);
 		this.checkSpawned("teleport");
 
-		this.lastTeleportLocation.setX(location.getY());
+		this.lastTeleportLocation.setX(location.getX());
 		this.lastTeleportLocation.setY(location.getY());
 		this.lastTeleportLocation.setZ(location.getZ());
 
@@ -330,4 +553,108 @@ public abstract class SimpleHologram {
 			it.remove();
 		}
 	}
+
+	/*
+	 * A lore line that only exists on the clients of nearby players
+	 */
+	@Getter
+	private static final class VirtualLine {
+
+		private final int entityId;
+		private final UUID uniqueId;
+		private final String text;
+
+		@Setter
+		private Location location;
+
+		VirtualLine(int entityId, UUID uniqueId, String text, Location location) {
+			this.entityId = entityId;
+			this.uniqueId = uniqueId;
+			this.text = text;
+			this.location = location;
+		}
+
+		/*
+		 * Spawns this line as an invisible armor stand with a visible name
+		 */
+		void show(Player player) {
+			final boolean modernSpawn = MinecraftVersion.atLeast(V.v1_19);
+			final PacketContainer spawn = new PacketContainer(modernSpawn ? PacketType.Play.Server.SPAWN_ENTITY : PacketType.Play.Server.SPAWN_ENTITY_LIVING);
+
+			spawn.getIntegers().write(0, this.entityId);
+			spawn.getUUIDs().write(0, this.uniqueId);
+
+			if (modernSpawn)
+				spawn.getEntityTypeModifier().write(0, EntityType.ARMOR_STAND);
+			else
+				spawn.getIntegers().write(1, 1); // Armor stand type id in 1.13 - 1.18
+
+			spawn.getDoubles()
+					.write(0, this.location.getX())
+					.write(1, this.location.getY())
+					.write(2, this.location.getZ());
+
+			HookManager.sendPacket(player, spawn);
+			HookManager.sendPacket(player, this.createMetadataPacket());
+		}
+
+		/*
+		 * Moves this line to its location, or spawns it again where teleport packets have no coordinates
+		 */
+		void teleport(Player player) {
+			final PacketContainer packet = new PacketContainer(PacketType.Play.Server.ENTITY_TELEPORT);
+
+			if (packet.getDoubles().size() < 3) {
+				final PacketContainer destroy = new PacketContainer(PacketType.Play.Server.ENTITY_DESTROY);
+
+				destroy.getIntLists().write(0, Arrays.asList(this.entityId));
+				HookManager.sendPacket(player, destroy);
+
+				this.show(player);
+				return;
+			}
+
+			packet.getIntegers().write(0, this.entityId);
+			packet.getDoubles()
+					.write(0, this.location.getX())
+					.write(1, this.location.getY())
+					.write(2, this.location.getZ());
+
+			HookManager.sendPacket(player, packet);
+		}
+
+		/*
+		 * Creates the metadata making the armor stand invisible with the text as its name
+		 */
+		private PacketContainer createMetadataPacket() {
+			final PacketContainer packet = new PacketContainer(PacketType.Play.Server.ENTITY_METADATA);
+			final Optional<?> name = Optional.of(WrappedChatComponent.fromLegacyText(this.text).getHandle());
+
+			packet.getIntegers().write(0, this.entityId);
+
+			// 1.19.3+ sends data values instead of watchable objects
+			if (MinecraftVersion.atLeast(V.v1_20) || MinecraftVersion.equals(V.v1_19) && MinecraftVersion.getSubversion() >= 3) {
+				final List<WrappedDataValue> values = new ArrayList<>();
+
+				values.add(new WrappedDataValue(0, Registry.get(Byte.class), (byte) 0x20));
+				values.add(new WrappedDataValue(2, Registry.getChatComponentSerializer(true), name));
+				values.add(new WrappedDataValue(3, Registry.get(Boolean.class), true));
+				values.add(new WrappedDataValue(5, Registry.get(Boolean.class), true));
+
+				packet.getDataValueCollectionModifier().write(0, values);
+
+			} else {
+				final WrappedDataWatcher watcher = new WrappedDataWatcher();
+
+				watcher.setObject(new WrappedDataWatcherObject(0, Registry.get(Byte.class)), (byte) 0x20);
+				watcher.setObject(new WrappedDataWatcherObject(2, Registry.getChatComponentSerializer(true)), name);
+				watcher.setObject(new WrappedDataWatcherObject(3, Registry.get(Boolean.class)), true);
+				watcher.setObject(new WrappedDataWatcherObject(5, Registry.get(Boolean.class)), true);
+
+				packet.getWatchableCollectionModifier().write(0, watcher.getWatchableObjects());
+			}
+
+			return packet;
+		}
+	}
 }
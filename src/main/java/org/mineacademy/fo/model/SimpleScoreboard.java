@@ -2,8 +2,14 @@ package org.mineacademy.fo.model;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.bukkit.Bukkit;
@@ -23,6 +29,8 @@ import org.mineacademy.fo.plugin.SimplePlugin;
 
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 /**
  * A simple way of rendering custom scoreboards for players with close to no flickering.
@@ -45,6 +53,11 @@ public class SimpleScoreboard {
 
 	private static final String COLOR_CHAR = "\u00A7";
 
+	/**
+	 * Removes useless colors in front of only spaces (e.g. [§a     §aText] becomes [     §aText])
+	 */
+	private static final Pattern SPACE_PATTERN = Pattern.compile("^( )+(" + COLOR_CHAR + ")");
+
 	/**
 	 * Unique chat color identifiers for specific team entries
 	 */
@@ -91,6 +104,27 @@ public class SimpleScoreboard {
 	 */
 	private BukkitTask updateTask;
 
+	/**
+	 * What we last rendered for each viewer, so that we only update lines that changed
+	 */
+	private final Map<UUID, RenderState> renderStates = new HashMap<>();
+
+	/**
+	 * Variables with the same value for all viewers, such as {online} or %server_online%
+	 */
+	private final Set<String> globalVariables = new HashSet<>();
+
+	/**
+	 * Does the subclass override {@link #replaceVariables(Player, String)}? We cannot tell which rows
+	 * it personalizes, so rows are only shared if it opts in, see {@link #isSharingRows()}
+	 */
+	private final boolean replacingVariables = overridesReplaceVariables(this.getClass());
+
+	/**
+	 * Whether rows are being rendered asynchronously right now, see {@link #isRenderedAsync()}
+	 */
+	private final AtomicBoolean renderingAsync = new AtomicBoolean(false);
+
 	/**
 	 * Create a new scoreboard updating every second
 	 */
@@ -161,6 +195,87 @@ public class SimpleScoreboard {
 	protected void onUpdate() {
 	}
 
+	/**
+	 * Return true if the row looks the same for all viewers, so that we only render
+	 * it once per update and share it. By default, rows with no variables or only variables
+	 * added in {@link #addGlobalVariables(String...)} are global.
+	 * <p>
+	 * If you override {@link #replaceVariables(Player, String)}, no rows are global
+	 * unless {@link #isSharingRows()} returns true or you override this method.
+	 *
+	 * @param row
+	 * @return
+	 */
+	protected boolean isGlobalRow(final String row) {
+		if (row.contains("{player}") || this.replacingVariables && !this.isSharingRows())
+			return false;
+
+		return this.hasOnlyGlobalVariables(row, Variables.BRACKET_VARIABLE_PATTERN.matcher(row))
+				&& this.hasOnlyGlobalVariables(row, Variables.VARIABLE_PATTERN.matcher(row));
+	}
+
+	/**
+	 * Return true to share rows with no variables or only global variables between viewers
+	 * even though you override {@link #replaceVariables(Player, String)}. Only enable this if
+	 * it gives the same result for all viewers for such rows, i.e. it does not personalize
+	 * other placeholders such as [kills].
+	 *
+	 * @return
+	 */
+	protected boolean isSharingRows() {
+		return false;
+	}
+
+	/*
+	 * Return true if the class or its parents up to us override replaceVariables
+	 */
+	private static boolean overridesReplaceVariables(Class<?> clazz) {
+		for (; clazz != null && clazz != SimpleScoreboard.class; clazz = clazz.getSuperclass())
+			try {
+				clazz.getDeclaredMethod("replaceVariables", Player.class, String.class);
+
+				return true;
+
+			} catch (final NoSuchMethodException ex) {
+				// Continue to the parent
+			}
+
+		return false;
+	}
+
+	/*
+	 * Return true if all variables found by the matcher are global
+	 */
+	private boolean hasOnlyGlobalVariables(final String row, final Matcher matcher) {
+		while (matcher.find())
+			if (!this.globalVariables.contains(matcher.group()))
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Declare variables having the same value for all viewers, including brackets
+	 * such as {online} or %server_online%. Rows only using such variables are
+	 * rendered once per update for all viewers, see {@link #isGlobalRow(String)}
+	 *
+	 * @param variables
+	 */
+	public final void addGlobalVariables(final String... variables) {
+		this.globalVariables.addAll(Arrays.asList(variables));
+	}
+
+	/**
+	 * Return true to replace variables and colors in rows off the main thread. Only enable
+	 * this if {@link #replaceVariables(Player, String)} is thread-safe, the rows are
+	 * then written to the scoreboard on the main thread on the next tick.
+	 *
+	 * @return
+	 */
+	protected boolean isRenderedAsync() {
+		return false;
+	}
+
 	public final String getTitle() {
 		return this.title;
 	}
@@ -216,6 +331,7 @@ public class SimpleScoreboard {
 
 		final Scoreboard scoreboard = Bukkit.getScoreboardManager().getNewScoreboard();
 		this.viewers.add(player.getUniqueId());
+		this.renderStates.remove(player.getUniqueId());
 		player.setScoreboard(scoreboard);
 	}
 
@@ -229,6 +345,7 @@ public class SimpleScoreboard {
 
 		player.setScoreboard(Bukkit.getScoreboardManager().getMainScoreboard());
 		this.viewers.remove(player.getUniqueId());
+		this.renderStates.remove(player.getUniqueId());
 
 		if (this.viewers.isEmpty())
 			this.cancelUpdateTask();
@@ -342,30 +459,85 @@ public class SimpleScoreboard {
 			try {
 				this.onUpdate();
 
+				final List<Player> onlineViewers = new ArrayList<>();
+
 				for (final UUID viewerId : new ArrayList<>(this.viewers)) {
 					final Player viewer = Bukkit.getPlayer(viewerId);
 
 					if (viewer == null || !viewer.isOnline()) {
 						this.viewers.remove(viewerId);
+						this.renderStates.remove(viewerId);
+
 						continue;
 					}
 
-					this.reloadEntries(viewer);
+					onlineViewers.add(viewer);
 				}
 
+				if (this.isRenderedAsync())
+					this.renderAsync(onlineViewers);
+
+				else
+					for (final Map.Entry<Player, Frame> entry : this.renderFrames(onlineViewers, this.title, this.rows).entrySet())
+						this.reloadEntries(entry.getKey(), entry.getValue());
+
 			} catch (final Throwable t) {
-				Common.error(t,
-						"Error displaying " + this,
-						"Entries: " + this.rows,
-						"Title: " + this.title,
-						"%error",
-						"Stopping rendering for safety.");
-
-				this.stop();
+				this.handleRenderError(t);
 			}
 		}, 0, this.updateDelayTicks);
 	}
 
+	/*
+	 * Renders rows for all viewers off the main thread then writes them on the main thread,
+	 * skipping this update if the previous one did not finish yet
+	 */
+	private void renderAsync(List<Player> viewers) {
+		if (!this.renderingAsync.compareAndSet(false, true))
+			return;
+
+		final String title = this.title;
+		final List<String> rows = new ArrayList<>(this.rows);
+
+		Common.runAsync(() -> {
+			try {
+				final Map<Player, Frame> frames = this.renderFrames(viewers, title, rows);
+
+				Common.runLater(() -> {
+					try {
+						for (final Map.Entry<Player, Frame> entry : frames.entrySet())
+							if (this.isRunning() && entry.getKey().isOnline() && this.isViewing(entry.getKey()))
+								this.reloadEntries(entry.getKey(), entry.getValue());
+
+					} catch (final Throwable t) {
+						this.handleRenderError(t);
+
+					} finally {
+						this.renderingAsync.set(false);
+					}
+				});
+
+			} catch (final Throwable t) {
+				this.renderingAsync.set(false);
+
+				Common.runLater(() -> this.handleRenderError(t));
+			}
+		});
+	}
+
+	/*
+	 * Stops the scoreboard after an error
+	 */
+	private void handleRenderError(Throwable t) {
+		Common.error(t,
+				"Error displaying " + this,
+				"Entries: " + this.rows,
+				"Title: " + this.title,
+				"%error",
+				"Stopping rendering for safety.");
+
+		this.stop();
+	}
+
 	/**
 	 * Stops this scoreboard and removes it from all viewers
 	 */
@@ -378,6 +550,7 @@ public class SimpleScoreboard {
 		});
 
 		this.viewers.clear();
+		this.renderStates.clear();
 
 		if (this.updateTask != null)
 			this.cancelUpdateTask();
@@ -427,89 +600,173 @@ public class SimpleScoreboard {
 	// Rendering
 	// ------------------------------------------------------------------------------------------------------------
 
+	/*
+	 * Replaces variables, theme and colors in the title and rows for each viewer,
+	 * rendering global rows only once and sharing them
+	 */
+	private Map<Player, Frame> renderFrames(List<Player> viewers, String title, List<String> rows) {
+		final Map<Player, Frame> frames = new HashMap<>();
+		final String colorizedTitle = Common.colorize(title);
+		final String[] globalRows = new String[rows.size()];
+		final boolean[] global = new boolean[rows.size()];
+
+		for (int lineNumber = 0; lineNumber < rows.size(); lineNumber++)
+			global[lineNumber] = this.isGlobalRow(rows.get(lineNumber));
+
+		for (final Player viewer : viewers) {
+			final String[] finishedRows = new String[rows.size()];
+
+			for (int lineNumber = 0; lineNumber < rows.size(); lineNumber++) {
+				if (global[lineNumber] && globalRows[lineNumber] != null) {
+					finishedRows[lineNumber] = globalRows[lineNumber];
+
+					continue;
+				}
+
+				final String scoreboardLineRaw = rows.get(lineNumber).replace("{player}", viewer.getName());
+				final String finishedRow = Common.colorize(replaceTheme(this.replaceVariables(viewer, scoreboardLineRaw)));
+
+				if (global[lineNumber])
+					globalRows[lineNumber] = finishedRow;
+
+				finishedRows[lineNumber] = finishedRow;
+			}
+
+			frames.put(viewer, new Frame(colorizedTitle, finishedRows));
+		}
+
+		return frames;
+	}
+
 	/**
-	 * Reload entries for the given player
+	 * Reload entries for the given player, only updating lines that changed since the last time
 	 *
 	 * @param player
+	 * @param frame
 	 */
-	private void reloadEntries(Player player) throws IllegalArgumentException {
-		final String colorizedTitle = Common.colorize(this.title);
+	private void reloadEntries(Player player, Frame frame) throws IllegalArgumentException {
 		final Scoreboard scoreboard = player.getScoreboard();
-		final List<String> rowsDone = new ArrayList<>();
-		Objective mainboard = scoreboard.getObjective("mainboard");
+		RenderState state = this.renderStates.get(player.getUniqueId());
+
+		// Another plugin could have changed the scoreboard, then we start over
+		if (state == null || state.getScoreboard() != scoreboard) {
+			state = new RenderState(scoreboard);
+
+			this.renderStates.put(player.getUniqueId(), state);
+		}
+
+		Objective mainboard = state.getObjective();
 
 		if (mainboard == null) {
-			mainboard = scoreboard.registerNewObjective("mainboard", "dummy");
-			mainboard.setDisplayName(colorizedTitle);
-			mainboard.setDisplaySlot(DisplaySlot.SIDEBAR);
+			mainboard = scoreboard.getObjective("mainboard");
+
+			if (mainboard == null) {
+				mainboard = scoreboard.registerNewObjective("mainboard", "dummy");
+				mainboard.setDisplayName(frame.getTitle());
+				mainboard.setDisplaySlot(DisplaySlot.SIDEBAR);
+			}
+
+			state.setObjective(mainboard);
 		}
 
-		if (!mainboard.getDisplayName().equals(colorizedTitle))
-			mainboard.setDisplayName(colorizedTitle);
+		if (!frame.getTitle().equals(state.getTitle())) {
+			if (!mainboard.getDisplayName().equals(frame.getTitle()))
+				mainboard.setDisplayName(frame.getTitle());
 
-		for (int lineNumber = 0; lineNumber < 15; lineNumber++) {
-			final int scoreboardLineNumber = this.rows.size() - lineNumber;
-			Team line = scoreboard.getTeam("line" + scoreboardLineNumber);
+			state.setTitle(frame.getTitle());
+		}
+
+		final String[] rows = frame.getRows();
+		final boolean rowCountChanged = rows.length != state.getRowCount();
+		final Set<String> rowsDone = new HashSet<>();
 
-			if (lineNumber < this.rows.size()) {
-				if (line == null)
-					line = scoreboard.registerNewTeam("line" + scoreboardLineNumber);
+		for (int lineNumber = 0; lineNumber < 15; lineNumber++) {
+			final int scoreboardLineNumber = rows.length - lineNumber;
 
-				final String scoreboardLineRaw = this.rows.get(lineNumber).replace("{player}", player.getName());
-				final boolean mc1_13 = MinecraftVersion.atLeast(MinecraftVersion.V.v1_13);
-				final boolean mc1_18 = MinecraftVersion.atLeast(MinecraftVersion.V.v1_18);
-				final String finishedRow = Common.colorize(replaceTheme(this.replaceVariables(player, scoreboardLineRaw)));
-				final boolean rowUsed = rowsDone.contains(finishedRow);
-				final int[] splitPoints = { mc1_13 ? 64 : 16, mc1_18 ? 32767 : 40, mc1_13 ? 64 : 16 };
+			if (lineNumber < rows.length) {
+				final String finishedRow = rows[lineNumber];
+				final boolean rowUsed = !rowsDone.add(finishedRow);
 
-				if (rowUsed)
-					splitPoints[1] = splitPoints[1] - 2;
+				// Line numbers shift when rows are added or removed so we render all of them again
+				if (rowCountChanged || !finishedRow.equals(state.getRows()[lineNumber]) || rowUsed != state.getUsed()[lineNumber]) {
+					this.renderLine(scoreboard, mainboard, lineNumber, scoreboardLineNumber, finishedRow, rowUsed);
 
-				final List<String> copy = copyColors(finishedRow, splitPoints);
-				final String prefix = copy.isEmpty() ? "" : copy.get(0);
-				String entry = copy.size() < 2 ? COLOR_CHAR + COLORS[lineNumber] + COLOR_CHAR + "r" : copy.get(1) + (rowUsed ? COLOR_CHAR + COLORS[lineNumber] : "");
+					state.getRows()[lineNumber] = finishedRow;
+					state.getUsed()[lineNumber] = rowUsed;
+				}
 
-				if (MinecraftVersion.olderThan(V.v1_13) && entry.length() > 16)
-					entry = entry.substring(0, 16);
+			} else {
+				state.getRows()[lineNumber] = null;
 
-				final String suffix = copy.size() < 3 ? "" : copy.get(2);
-				String oldEntry = null;
+				if (rowCountChanged) {
+					final Team line = scoreboard.getTeam("line" + scoreboardLineNumber);
 
-				if (!line.getPrefix().equals(prefix))
-					line.setPrefix(prefix);
+					if (line != null) {
+						for (final String oldEntry : line.getEntries())
+							scoreboard.resetScores(oldEntry);
 
-				if (line.getEntries().size() > 1) {
-					for (final String teamEntry : line.getEntries()) {
-						line.removeEntry(teamEntry);
-						scoreboard.resetScores(teamEntry);
+						line.unregister();
 					}
 				}
+			}
+		}
 
-				if (!line.getEntries().contains(entry)) {
-					if (!line.getEntries().isEmpty()) {
-						oldEntry = new ArrayList<>(line.getEntries()).get(0);
+		state.setRowCount(rows.length);
+	}
 
-						line.removeEntry(oldEntry);
-					}
+	/*
+	 * Writes the given row into the team for the line
+	 */
+	private void renderLine(Scoreboard scoreboard, Objective mainboard, int lineNumber, int scoreboardLineNumber, String finishedRow, boolean rowUsed) {
+		Team line = scoreboard.getTeam("line" + scoreboardLineNumber);
 
-					line.addEntry(entry);
-				}
+		if (line == null)
+			line = scoreboard.registerNewTeam("line" + scoreboardLineNumber);
+
+		final boolean mc1_13 = MinecraftVersion.atLeast(MinecraftVersion.V.v1_13);
+		final boolean mc1_18 = MinecraftVersion.atLeast(MinecraftVersion.V.v1_18);
+		final int[] splitPoints = { mc1_13 ? 64 : 16, mc1_18 ? 32767 : 40, mc1_13 ? 64 : 16 };
+
+		if (rowUsed)
+			splitPoints[1] = splitPoints[1] - 2;
 
-				if (!line.getSuffix().equals(suffix))
-					line.setSuffix(suffix);
+		final List<String> copy = copyColors(finishedRow, splitPoints);
+		final String prefix = copy.isEmpty() ? "" : copy.get(0);
+		String entry = copy.size() < 2 ? COLOR_CHAR + COLORS[lineNumber] + COLOR_CHAR + "r" : copy.get(1) + (rowUsed ? COLOR_CHAR + COLORS[lineNumber] : "");
 
-				if (oldEntry != null)
-					scoreboard.resetScores(oldEntry);
+		if (MinecraftVersion.olderThan(V.v1_13) && entry.length() > 16)
+			entry = entry.substring(0, 16);
+
+		final String suffix = copy.size() < 3 ? "" : copy.get(2);
+		String oldEntry = null;
+
+		if (!line.getPrefix().equals(prefix))
+			line.setPrefix(prefix);
+
+		if (line.getEntries().size() > 1) {
+			for (final String teamEntry : line.getEntries()) {
+				line.removeEntry(teamEntry);
+				scoreboard.resetScores(teamEntry);
+			}
+		}
 
-				mainboard.getScore(entry).setScore(scoreboardLineNumber);
-				rowsDone.add(finishedRow);
-			} else if (line != null) {
-				for (final String oldEntry : line.getEntries())
-					scoreboard.resetScores(oldEntry);
+		if (!line.getEntries().contains(entry)) {
+			if (!line.getEntries().isEmpty()) {
+				oldEntry = new ArrayList<>(line.getEntries()).get(0);
 
-				line.unregister();
+				line.removeEntry(oldEntry);
 			}
+
+			line.addEntry(entry);
 		}
+
+		if (!line.getSuffix().equals(suffix))
+			line.setSuffix(suffix);
+
+		if (oldEntry != null)
+			scoreboard.resetScores(oldEntry);
+
+		mainboard.getScore(entry).setScore(scoreboardLineNumber);
 	}
 
 	/**
@@ -518,15 +775,13 @@ public class SimpleScoreboard {
 	 * @return The method will split the text at the given splitPoints and will copy the colors over
 	 */
 	private List<String> copyColors(String text, int... splitPoints) {
-		//Removes useless colors in front of only spaces (e.g. [§a     §aText] becomes [     §aText])
-		final Pattern spaceMatcher = Pattern.compile("^( )+(" + COLOR_CHAR + ")");
 		final List<String> splitText = new ArrayList<>();
 
 		for (final int splitPoint : splitPoints) {
 			final String lastEntry = splitText.isEmpty() ? "" : splitText.get(splitText.size() - 1);
 			final String lastColor = ChatColor.getLastColors(lastEntry);
 
-			final boolean addColor = !text.startsWith(COLOR_CHAR) && !lastColor.isEmpty() && !spaceMatcher.matcher(text).find();
+			final boolean addColor = !text.startsWith(COLOR_CHAR) && !lastColor.isEmpty() && !SPACE_PATTERN.matcher(text).find();
 			final int realSplitPoint = Math.min(splitPoint - (addColor ? 2 : 0), text.length());
 			String line = (addColor ? lastColor : "") + text.substring(0, realSplitPoint);
 
@@ -545,4 +800,34 @@ public class SimpleScoreboard {
 
 		return splitText;
 	}
-}
\ No newline at end of file
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Classes
+	// ------------------------------------------------------------------------------------------------------------
+
+	/*
+	 * The title and rows rendered for a viewer
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	private static final class Frame {
+		private final String title;
+		private final String[] rows;
+	}
+
+	/*
+	 * What was last written to the scoreboard of a viewer
+	 */
+	@Getter
+	@Setter
+	@RequiredArgsConstructor
+	private static final class RenderState {
+		private final Scoreboard scoreboard;
+		private final String[] rows = new String[15];
+		private final boolean[] used = new boolean[15];
+
+		private Objective objective;
+		private String title;
+		private int rowCount = -1;
+	}
+}
@@ -1,15 +1,20 @@
 package org.mineacademy.fo.model;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.bukkit.ChatColor;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.ConsoleCommandSender;
 import org.bukkit.entity.Player;
@@ -22,11 +27,15 @@ import org.mineacademy.fo.PlayerUtil;
 import org.mineacademy.fo.TimeUtil;
 import org.mineacademy.fo.collection.StrictList;
 import org.mineacademy.fo.collection.StrictMap;
-import org.mineacademy.fo.collection.expiringmap.ExpiringMap;
 import org.mineacademy.fo.plugin.SimplePlugin;
 import org.mineacademy.fo.remain.Remain;
 import org.mineacademy.fo.settings.SimpleLocalization;
 
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
 /**
  * A simple engine that replaces variables in a message.
  */
@@ -58,9 +67,72 @@ public final class Variables {
 	public static final Pattern BRACKET_REL_VARIABLE_PATTERN = Pattern.compile("[({)](rel_)([^}]+)[(})]");
 
 	/**
-	 * Player - [Original Message - Translated Message]
+	 * Player unique ID - [Variable with brackets - Cached value], see {@link Volatility}
+	 */
+	private static final Map<UUID, Map<String, CachedValue>> valueCache = new ConcurrentHashMap<>();
+
+	/**
+	 * How many variables to cache per player before we start over
+	 */
+	private static final int VALUE_CACHE_LIMIT = 512;
+
+	/**
+	 * Variable name - How long its value is cached for
+	 */
+	private static final Map<String, Volatility> volatilities = new ConcurrentHashMap<>();
+
+	/**
+	 * How long values of variables without a declared volatility are cached for
+	 */
+	@Getter
+	@Setter
+	private static Volatility defaultVolatility = Volatility.PER_TICK;
+
+	/**
+	 * How many times we found a cached variable value
+	 */
+	private static final LongAdder cacheHits = new LongAdder();
+
+	/**
+	 * How many times we had to replace a variable
+	 */
+	private static final LongAdder cacheMisses = new LongAdder();
+
+	/**
+	 * Raw message - Message parsed into literals and variables, see {@link CompiledMessage}
+	 */
+	private static final Map<String, CompiledMessage> compiledCache = new ConcurrentHashMap<>();
+
+	/**
+	 * How many compiled messages to keep before we start over
+	 */
+	private static final int COMPILED_CACHE_LIMIT = 5_000;
+
+	/**
+	 * Joins variables of a message passed to PlaceholderAPI at once, never present in variables
+	 */
+	private static final char PLACEHOLDER_SEPARATOR = '\0';
+
+	/**
+	 * Variables replaced by {@link Messenger#replacePrefixes(String)}
 	 */
-	private static final Map<String, Map<String, String>> cache = ExpiringMap.builder().expiration(500, TimeUnit.MILLISECONDS).build();
+	private static final Set<String> PREFIX_VARIABLES = new HashSet<>(Arrays.asList(
+			"plugin_prefix", "info_prefix", "prefix_info", "success_prefix", "prefix_success", "warn_prefix", "prefix_warn",
+			"error_prefix", "prefix_error", "question_prefix", "prefix_question", "announce_prefix", "prefix_announce"));
+
+	static {
+		for (final String variable : Arrays.asList("server_name", "server_version", "nms_version", "label", "player", "player_name", "ip_address", "pl_address",
+				"chat_line", "chat_line_smooth", "country_code", "country_name", "region_name", "isp", "sender_is_player", "sender_is_discord", "sender_is_console"))
+			volatilities.put(variable, Volatility.STATIC);
+
+		for (final String variable : Arrays.asList("timestamp", "date", "date_short", "date_month", "town", "nation", "faction", "tab_name", "display_name",
+				"player_nick", "nick", "player_prefix", "pl_prefix", "player_suffix", "pl_suffix", "player_group", "pl_group", "player_primary_group",
+				"pl_primary_group", "player_vanished"))
+			volatilities.put(variable, Volatility.PER_SECOND);
+
+		for (final String variable : Arrays.asList("world", "health", "location", "x", "y", "z"))
+			volatilities.put(variable, Volatility.PER_TICK);
+	}
 
 	// ------------------------------------------------------------------------------------------------------------
 	// Custom variables
@@ -108,6 +180,34 @@ public final class Variables {
 	 */
 	public static void addVariable(String variable, Function<CommandSender, String> replacer) {
 		customVariables.override(variable, replacer);
+
+		// Values cached for the previous replacer or a built-in variable of the same name are outdated
+		clearCache();
+	}
+
+	/**
+	 * Register a new variable and declare how long its value can be cached for each player,
+	 * see {@link #addVariable(String, Function)}
+	 *
+	 * @param variable
+	 * @param replacer
+	 * @param volatility
+	 */
+	public static void addVariable(String variable, Function<CommandSender, String> replacer, Volatility volatility) {
+		addVariable(variable, replacer);
+		setVolatility(variable, volatility);
+	}
+
+	/**
+	 * Declare how long the value of the given variable can be cached for each player.
+	 * Works for any variable including PlaceholderAPI ones, only put the name here without
+	 * brackets, e.g. player_name not {player_name}
+	 *
+	 * @param variable
+	 * @param volatility
+	 */
+	public static void setVolatility(String variable, Volatility volatility) {
+		volatilities.put(variable, volatility);
 	}
 
 	/**
@@ -118,6 +218,8 @@ public final class Variables {
 	 */
 	public static void removeVariable(String variable) {
 		customVariables.remove(variable);
+
+		clearCache();
 	}
 
 	/**
@@ -147,6 +249,9 @@ public final class Variables {
 	 */
 	public static void addExpansion(SimpleExpansion expansion) {
 		customExpansions.addIfNotExist(expansion);
+
+		// The expansion may replace variables we already cached
+		clearCache();
 	}
 
 	/**
@@ -156,6 +261,8 @@ public final class Variables {
 	 */
 	public static void removeExpansion(SimpleExpansion expansion) {
 		customExpansions.remove(expansion);
+
+		clearCache();
 	}
 
 	/**
@@ -168,6 +275,66 @@ public final class Variables {
 		return customExpansions.contains(expansion);
 	}
 
+	// ------------------------------------------------------------------------------------------------------------
+	// Caching
+	// ------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Removes all cached variable values for the given player, called automatically when he quits
+	 *
+	 * @param player
+	 */
+	public static void clearCache(Player player) {
+		valueCache.remove(player.getUniqueId());
+	}
+
+	/**
+	 * Removes all cached variable values
+	 */
+	public static void clearCache() {
+		valueCache.clear();
+	}
+
+	/**
+	 * Return how many times a cached variable value was used since the last reset
+	 *
+	 * @return
+	 */
+	public static long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	/**
+	 * Return how many times a variable had to be replaced since the last reset
+	 *
+	 * @return
+	 */
+	public static long getCacheMisses() {
+		return cacheMisses.sum();
+	}
+
+	/**
+	 * Return how many variable values are cached now for all players
+	 *
+	 * @return
+	 */
+	public static int getCacheSize() {
+		int size = 0;
+
+		for (final Map<String, CachedValue> values : valueCache.values())
+			size += values.size();
+
+		return size;
+	}
+
+	/**
+	 * Resets cache hits and misses
+	 */
+	public static void resetCacheStats() {
+		cacheHits.reset();
+		cacheMisses.reset();
+	}
+
 	// ------------------------------------------------------------------------------------------------------------
 	// Replacing
 	// ------------------------------------------------------------------------------------------------------------
@@ -234,117 +401,171 @@ public final class Variables {
 		if (message == null || message.isEmpty() || message.equals("none"))
 			return "";
 
-		final String original = message;
-		final boolean senderIsPlayer = sender instanceof Player;
+		// Replace PlaceholderAPI, hard, JavaScript and custom variables in one pass
+		final CompiledMessage compiled = compile(message);
 
-		if (senderIsPlayer) {
+		message = compiled.render(sender, replacements, replaceScript);
+
+		if (!message.startsWith("[JSON]") && colorize)
+			message = Common.colorize(message);
+
+		return message;
+	}
+
+	/*
+	 * Return the message parsed into literals and variables, cached by the raw message
+	 */
+	private static CompiledMessage compile(String message) {
+		CompiledMessage compiled = compiledCache.get(message);
 
-			// Already cached ? Return.
-			final Map<String, String> cached = cache.get(sender.getName());
-			final String cachedVar = cached != null ? cached.get(message) : null;
+		if (compiled == null) {
+			if (compiledCache.size() >= COMPILED_CACHE_LIMIT)
+				compiledCache.clear();
 
-			if (cachedVar != null && !cachedVar.contains("flpm_") && !cachedVar.contains("flps_"))
-				return cachedVar;
+			compiled = CompiledMessage.compile(message);
+			compiledCache.put(message, compiled);
 		}
 
-		// PlaceholderAPI and MVdWPlaceholderAPI
-		if (senderIsPlayer)
-			message = HookManager.replacePlaceholders((Player) sender, message);
+		return compiled;
+	}
 
-		else if (sender instanceof DiscordSender)
-			message = HookManager.replacePlaceholders(((DiscordSender) sender).getOfflinePlayer(), message);
+	/*
+	 * Resolves a JavaScript variable, returning null if it is unknown.
+	 *
+	 * Called after PlaceholderAPI, MVdWPlaceholderAPI and hard variables.
+	 */
+	private static String resolveScriptVariable0(CompiledMessage.Segment segment, CommandSender sender, Map<String, Object> replacements, boolean replaceScript) {
+		if (!replaceScript)
+			return null;
 
-		// Replace hard variables
-		message = replaceHardVariables0(sender, message, Variables.VARIABLE_PATTERN.matcher(message));
-		message = replaceHardVariables0(sender, message, Variables.BRACKET_VARIABLE_PATTERN.matcher(message));
-		message = Messenger.replacePrefixes(message);
+		final Variable variable = Variable.findVariable(segment.getInner());
 
-		// Custom placeholders
-		if (replaceScript)
-			message = replaceJavascriptVariables0(message, sender, replacements);
+		if (variable != null && variable.getType() == Variable.Type.FORMAT) {
+			final String plain = variable.buildPlain(sender, replacements);
 
-		// Replace custom variables last to avoid replacing variables in them for security
-		if (replacements != null && !replacements.isEmpty())
-			message = Replacer.replaceArray(message, replacements);
+			// And we remove the white prefix that is by default added in every component
+			return plain.startsWith(ChatColor.COLOR_CHAR + "f" + ChatColor.COLOR_CHAR + "f") ? plain.substring(4) : plain;
+		}
 
-		if (!message.startsWith("[JSON]") && colorize)
-			message = Common.colorize(message);
+		return null;
+	}
+
+	/*
+	 * Resolves a variable from the custom replacements, returning null if it is unknown and should be kept.
+	 *
+	 * Called last and never scanned for other variables to avoid replacing variables in them for security.
+	 */
+	private static String resolveReplacement0(CompiledMessage.Segment segment, Map<String, Object> replacements) {
 
-		if (senderIsPlayer) {
-			final Map<String, String> map = cache.get(sender.getName());
+		// Custom replacements, the last matching key wins same as in Replacer
+		if (replacements != null && !replacements.isEmpty()) {
+			String replacement = null;
 
-			if (map != null)
-				map.put(original, message);
-			else
-				cache.put(sender.getName(), Common.newHashMap(original, message));
+			for (final Map.Entry<String, Object> entry : replacements.entrySet()) {
+				String key = entry.getKey();
+
+				key = key.startsWith("{") ? key.substring(1) : key;
+				key = key.endsWith("}") ? key.substring(0, key.length() - 1) : key;
+
+				if (key.equals(segment.getVariable()))
+					replacement = entry.getValue() == null ? "null" : entry.getValue().toString();
+			}
+
+			if (replacement != null)
+				return formatValue0(replacement, segment);
 		}
 
-		return message;
+		return null;
 	}
 
 	/*
-	 * Replaces JavaScript variables in the message
+	 * Return the cached value of the variable for the player, or null if it is not cached,
+	 * expired per the variable's {@link Volatility} or must not be cached
 	 */
-	private static String replaceJavascriptVariables0(String message, CommandSender sender, Map<String, Object> replacements) {
+	private static CachedValue findCachedValue0(CompiledMessage.Segment segment, Player player) {
+		final Map<String, CachedValue> values = valueCache.get(player.getUniqueId());
+		final CachedValue cached = values != null ? values.get(segment.getText()) : null;
 
-		message = replaceJavascriptVariables0(message, sender, replacements, VARIABLE_PATTERN.matcher(message));
-		message = replaceJavascriptVariables0(message, sender, replacements, BRACKET_VARIABLE_PATTERN.matcher(message));
+		if (cached != null && (cached.getExpiresAt() == -1 || System.currentTimeMillis() < cached.getExpiresAt())) {
+			cacheHits.increment();
 
-		return message;
+			return cached;
+		}
+
+		cacheMisses.increment();
+
+		return null;
 	}
 
-	private static String replaceJavascriptVariables0(String message, CommandSender sender, Map<String, Object> replacements, Matcher matcher) {
-		while (matcher.find()) {
-			final String variableKey = matcher.group();
+	/*
+	 * Caches the value of the variable for the player per the variable's {@link Volatility}
+	 */
+	private static void cacheValue0(CompiledMessage.Segment segment, Player player, String value) {
+		final Volatility volatility = volatilities.getOrDefault(segment.getVariable(), defaultVolatility);
+
+		if (volatility == Volatility.NONE || value != null && (value.contains("flpm_") || value.contains("flps_")))
+			return;
 
-			// Find the variable key without []
-			final Variable variable = Variable.findVariable(variableKey.substring(1, variableKey.length() - 1));
+		final Map<String, CachedValue> values = valueCache.computeIfAbsent(player.getUniqueId(), uuid -> new ConcurrentHashMap<>());
 
-			if (variable != null && variable.getType() == Variable.Type.FORMAT) {
-				String plain = variable.buildPlain(sender, replacements);
+		if (values.size() >= VALUE_CACHE_LIMIT)
+			values.clear();
 
-				// And we remove the white prefix that is by default added in every component
-				if (plain.startsWith(ChatColor.COLOR_CHAR + "f" + ChatColor.COLOR_CHAR + "f"))
-					plain = plain.substring(4);
+		values.put(segment.getText(), new CachedValue(value, volatility == Volatility.STATIC ? -1 : System.currentTimeMillis() + volatility.getMillis()));
+	}
 
-				message = message.replace(variableKey, plain);
-			}
+	/*
+	 * Replaces the given variables using PlaceholderAPI and MVdWPlaceholderAPI in a single call,
+	 * returning their values in the same order, or null for variables that were not replaced
+	 */
+	private static String[] replacePlaceholders0(OfflinePlayer player, List<CompiledMessage.Segment> segments) {
+		final String[] values = new String[segments.size()];
+		final StringBuilder joined = new StringBuilder();
+
+		for (int i = 0; i < segments.size(); i++) {
+			if (i > 0)
+				joined.append(PLACEHOLDER_SEPARATOR);
+
+			joined.append(segments.get(i).getText());
 		}
 
-		return message;
-	}
+		final String replaced = HookManager.replacePlaceholders(player, joined.toString());
 
-	private static String replaceHardVariables0(CommandSender sender, String message, Matcher matcher) {
-		final Player player = sender instanceof Player ? (Player) sender : null;
+		if (replaced == null || replaced.equals(joined.toString()))
+			return values;
 
-		while (matcher.find()) {
-			String variable = matcher.group(1);
-			boolean frontSpace = false;
-			boolean backSpace = false;
+		final String[] split = replaced.split(String.valueOf(PLACEHOLDER_SEPARATOR), -1);
 
-			if (variable.startsWith("+")) {
-				variable = variable.substring(1);
+		// A value containing our separator, keep all variables rather than mixing them up
+		if (split.length != values.length)
+			return values;
 
-				frontSpace = true;
-			}
+		for (int i = 0; i < split.length; i++)
+			if (!split[i].equals(segments.get(i).getText()))
+				values[i] = split[i];
 
-			if (variable.endsWith("+")) {
-				variable = variable.substring(0, variable.length() - 1);
+		return values;
+	}
 
-				backSpace = true;
-			}
+	/*
+	 * Resolves hard variables which only depend on the sender
+	 */
+	private static String resolveSenderVariable0(CompiledMessage.Segment segment, CommandSender sender, Player player) {
+		final String value = lookupVariable0(player, sender, segment.getVariable());
 
-			String value = lookupVariable0(player, sender, variable);
+		return value != null ? formatValue0(value, segment) : null;
+	}
 
-			if (value != null) {
-				final boolean emptyColorless = Common.stripColors(value).isEmpty();
-				value = value.isEmpty() ? "" : (frontSpace && !emptyColorless ? " " : "") + Common.colorize(value) + (backSpace && !emptyColorless ? " " : "");
+	/*
+	 * Colorizes the variable value and adds spaces around it if the variable had + signs
+	 */
+	private static String formatValue0(String value, CompiledMessage.Segment segment) {
+		if (value.isEmpty())
+			return "";
 
-				message = message.replace(matcher.group(), value);
-			}
-		}
+		final boolean emptyColorless = Common.stripColors(value).isEmpty();
 
-		return message;
+		return (segment.isFrontSpace() && !emptyColorless ? " " : "") + Common.colorize(value) + (segment.isBackSpace() && !emptyColorless ? " " : "");
 	}
 
 	/*
@@ -487,4 +708,327 @@ public final class Variables {
 			return player.getAddress() != null ? player.getAddress().toString() : "";
 		}
 	}
+
+	/**
+	 * A message parsed once into literal text and %variable% or {variable} segments
+	 * so that we can render it for a sender in one pass without regex.
+	 */
+	@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+	private static final class CompiledMessage {
+
+		/**
+		 * The literal and variable segments in order
+		 */
+		private final Segment[] segments;
+
+		/**
+		 * Does the message contain any variable at all?
+		 */
+		private final boolean hasVariables;
+
+		/**
+		 * Does the message contain variables handled by {@link Messenger#replacePrefixes(String)}?
+		 */
+		private final boolean hasPrefixes;
+
+		/*
+		 * Renders the message for the given sender into a single builder
+		 */
+		private String render(CommandSender sender, Map<String, Object> replacements, boolean replaceScript) {
+			return this.render(sender, replacements, replaceScript, true, true);
+		}
+
+		/*
+		 * Renders the message for the given sender into a single builder, optionally
+		 * replacing PlaceholderAPI and MVdWPlaceholderAPI variables.
+		 *
+		 * When rescanning, values of placeholders, hard and JavaScript variables containing other
+		 * variables are rendered once more, same as when we replaced each kind over the whole message.
+		 */
+		private String render(CommandSender sender, Map<String, Object> replacements, boolean replaceScript, boolean replacePlaceholders, boolean rescan) {
+			if (!this.hasVariables)
+				return this.segments.length == 0 ? "" : this.segments[0].getText();
+
+			final Player player = sender instanceof Player ? (Player) sender : null;
+			final OfflinePlayer placeholderPlayer = !replacePlaceholders ? null : player != null ? player : sender instanceof DiscordSender ? ((DiscordSender) sender).getOfflinePlayer() : null;
+
+			// Values only depending on the sender are cached for players
+			final CachedValue[] cachedValues = new CachedValue[this.segments.length];
+			final List<Segment> placeholders = new ArrayList<>();
+			final List<Integer> placeholderIndexes = new ArrayList<>();
+
+			for (int i = 0; i < this.segments.length; i++) {
+				final Segment segment = this.segments[i];
+
+				if (segment.getVariable() == null)
+					continue;
+
+				if (player != null && segment.getNested() == null)
+					cachedValues[i] = findCachedValue0(segment, player);
+
+				if (cachedValues[i] == null && placeholderPlayer != null && segment.isPlaceholderCandidate()) {
+					placeholders.add(segment);
+					placeholderIndexes.add(i);
+				}
+			}
+
+			// Replace PlaceholderAPI and MVdWPlaceholderAPI variables of the whole message at once
+			final String[] placeholderValues = new String[this.segments.length];
+
+			if (!placeholders.isEmpty()) {
+				final String[] replaced = replacePlaceholders0(placeholderPlayer, placeholders);
+
+				for (int i = 0; i < replaced.length; i++)
+					placeholderValues[placeholderIndexes.get(i)] = replaced[i];
+			}
+
+			final StringBuilder builder = new StringBuilder();
+
+			for (int i = 0; i < this.segments.length; i++) {
+				final Segment segment = this.segments[i];
+
+				if (segment.getVariable() == null) {
+					builder.append(segment.getText());
+
+					continue;
+				}
+
+				// Percent variables containing brackets are only replaced by PlaceholderAPI,
+				// then we replace our variables in what is left
+				if (segment.getNested() != null) {
+					final String replaced = placeholderValues[i];
+					final CompiledMessage nested = replaced != null ? compile(replaced, false) : segment.getNested();
+
+					builder.append(nested.render(sender, replacements, replaceScript, false, rescan));
+
+					continue;
+				}
+
+				String value;
+
+				if (cachedValues[i] != null)
+					value = cachedValues[i].getValue();
+
+				else {
+					value = placeholderValues[i] != null ? placeholderValues[i] : resolveSenderVariable0(segment, sender, player);
+
+					if (player != null)
+						cacheValue0(segment, player, value);
+				}
+
+				// Placeholder and hard variable values may contain prefixes, other variables or replacement keys
+				if (value != null && rescan && (value.indexOf('{') != -1 || value.indexOf('%') != -1))
+					value = compile(value, false).render(sender, replacements, replaceScript, false, false);
+
+				if (value == null) {
+					value = resolveScriptVariable0(segment, sender, replacements, replaceScript);
+
+					// JavaScript variable values may contain replacement keys
+					if (value != null && rescan && replacements != null && !replacements.isEmpty())
+						value = Replacer.replaceArray(value, replacements);
+				}
+
+				if (value == null)
+					value = resolveReplacement0(segment, replacements);
+
+				builder.append(value != null ? value : segment.getText());
+			}
+
+			final String message = builder.toString();
+
+			return this.hasPrefixes ? Messenger.replacePrefixes(message) : message;
+		}
+
+		/*
+		 * Parses the message into segments, matching the same variables as
+		 * VARIABLE_PATTERN and BRACKET_VARIABLE_PATTERN
+		 */
+		private static CompiledMessage compile(String message) {
+			return compile(message, true);
+		}
+
+		/*
+		 * Parses the message into segments, optionally keeping percent variables containing
+		 * brackets such as %math_{x}% as one segment to pass to PlaceholderAPI
+		 */
+		private static CompiledMessage compile(String message, boolean bracketPlaceholders) {
+			final List<Segment> segments = new ArrayList<>();
+			final StringBuilder literal = new StringBuilder();
+			boolean hasVariables = false;
+			boolean hasPrefixes = false;
+
+			int index = 0;
+
+			while (index < message.length()) {
+				final char character = message.charAt(index);
+				int end = character == '%' || character == '{' ? findVariableEnd(message, index) : -1;
+				CompiledMessage nested = null;
+
+				// Pass percent variables containing brackets to PlaceholderAPI as a whole
+				if (end == -1 && character == '%' && bracketPlaceholders) {
+					final int closing = message.indexOf('%', index + 1);
+
+					if (closing > index + 1) {
+						end = closing;
+						nested = compile(message.substring(index, closing + 1), false);
+					}
+				}
+
+				if (end == -1) {
+					literal.append(character);
+					index++;
+
+					continue;
+				}
+
+				if (literal.length() > 0) {
+					segments.add(new Segment(literal.toString(), null, null, false, false, null));
+					literal.setLength(0);
+				}
+
+				final String text = message.substring(index, end + 1);
+				final String inner = text.substring(1, text.length() - 1);
+				String variable = inner;
+				boolean frontSpace = false;
+				boolean backSpace = false;
+
+				if (variable.startsWith("+")) {
+					variable = variable.substring(1);
+
+					frontSpace = true;
+				}
+
+				if (variable.endsWith("+")) {
+					variable = variable.substring(0, variable.length() - 1);
+
+					backSpace = true;
+				}
+
+				segments.add(new Segment(text, inner, variable, frontSpace, backSpace, nested));
+
+				hasVariables = true;
+				hasPrefixes = hasPrefixes || PREFIX_VARIABLES.contains(variable);
+				index = end + 1;
+			}
+
+			if (literal.length() > 0)
+				segments.add(new Segment(literal.toString(), null, null, false, false, null));
+
+			return new CompiledMessage(segments.toArray(new Segment[segments.size()]), hasVariables, hasPrefixes);
+		}
+
+		/*
+		 * Return the index of the closing % or } for the variable starting at the given index,
+		 * or -1 if there is none. Percent variables containing brackets are skipped so that
+		 * bracket variables inside text such as "50% off {player}" still get replaced.
+		 */
+		private static int findVariableEnd(String message, int start) {
+			final char opening = message.charAt(start);
+			final char closing = opening == '%' ? '%' : '}';
+
+			for (int index = start + 1; index < message.length(); index++) {
+				final char character = message.charAt(index);
+
+				if (character == closing)
+					return index > start + 1 ? index : -1;
+
+				if (character == '{' || character == '}')
+					return -1;
+			}
+
+			return -1;
+		}
+
+		/**
+		 * A literal text or a variable in the message
+		 */
+		@Getter
+		@RequiredArgsConstructor
+		private static final class Segment {
+
+			/**
+			 * The literal text, or the whole variable including its brackets
+			 */
+			private final String text;
+
+			/**
+			 * The variable without brackets but with + signs, or null if literal
+			 */
+			private final String inner;
+
+			/**
+			 * The variable name without brackets and + signs, or null if literal
+			 */
+			private final String variable;
+
+			/**
+			 * Should we add a space before the value?
+			 */
+			private final boolean frontSpace;
+
+			/**
+			 * Should we add a space after the value?
+			 */
+			private final boolean backSpace;
+
+			/**
+			 * For percent variables containing brackets, the variable parsed as a message
+			 * to render when PlaceholderAPI does not replace it, otherwise null
+			 */
+			private final CompiledMessage nested;
+
+			/**
+			 * Can we pass this variable to PlaceholderAPI together with other variables?
+			 *
+			 * @return
+			 */
+			private boolean isPlaceholderCandidate() {
+				return this.text.indexOf(PLACEHOLDER_SEPARATOR) == -1 && (this.text.charAt(0) == '%' || this.text.indexOf('%') == -1);
+			}
+		}
+	}
+
+	/**
+	 * Declares how long the value of a variable stays the same for a player so that
+	 * we can cache it, see {@link Variables#setVolatility(String, Volatility)}
+	 */
+	@RequiredArgsConstructor
+	public enum Volatility {
+
+		/**
+		 * The value never changes for the player while online, such as the server name
+		 */
+		STATIC(-1),
+
+		/**
+		 * The value is cached for one second, such as the date or the player's prefix
+		 */
+		PER_SECOND(1000),
+
+		/**
+		 * The value is cached for one tick, such as the player's location
+		 */
+		PER_TICK(50),
+
+		/**
+		 * The value is never cached
+		 */
+		NONE(0);
+
+		/**
+		 * How long the value is cached for, in milliseconds
+		 */
+		@Getter
+		private final long millis;
+	}
+
+	/*
+	 * A cached variable value with its expiration time, or -1 if it never expires
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	private static final class CachedValue {
+		private final String value;
+		private final long expiresAt;
+	}
 }
@@ -1,13 +1,20 @@
 package org.mineacademy.fo.plugin;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.regex.Pattern;
@@ -19,6 +26,7 @@ import org.mineacademy.fo.Common;
 import org.mineacademy.fo.ReflectionUtil;
 import org.mineacademy.fo.Valid;
 import org.mineacademy.fo.annotation.AutoRegister;
+import org.mineacademy.fo.annotation.AutoRegisterProcessor;
 import org.mineacademy.fo.bungee.BungeeListener;
 import org.mineacademy.fo.command.SimpleCommand;
 import org.mineacademy.fo.command.SimpleCommandGroup;
@@ -377,7 +385,8 @@ final class AutoRegisterScanner {
 	}
 
 	/*
-	 * Compiles valid classes from our plugin that can be autoregistered
+	 * Compiles valid classes from our plugin that can be autoregistered,
+	 * using the index written by AutoRegisterProcessor when it covers the JAR
 	 */
 	private static List<Class<?>> findValidClasses() {
 		final List<Class<?>> classes = new ArrayList<>();
@@ -386,6 +395,24 @@ final class AutoRegisterScanner {
 		final Pattern anonymousClassPattern = Pattern.compile("\\w+\\$[0-9]$");
 
 		try (final JarFile file = new JarFile(SimplePlugin.getSource())) {
+			final List<String> classNames = readIndex(file);
+
+			if (classNames != null) {
+				for (final String className : classNames) {
+					final Class<?> clazz = loadClass(className);
+
+					if (clazz != null && !Modifier.isAbstract(clazz.getModifiers()))
+						classes.add(clazz);
+				}
+
+				// Our own classes are not indexed since Foundation is compiled without the processor
+				for (final Class<?> foundationClass : new Class<?>[] { FoundationPacketListener.class, RegionTool.class })
+					if (!classes.contains(foundationClass))
+						classes.add(foundationClass);
+
+				return classes;
+			}
+
 			for (final Enumeration<JarEntry> entry = file.entries(); entry.hasMoreElements();) {
 				final JarEntry jar = entry.nextElement();
 				final String name = jar.getName().replace("/", ".");
@@ -395,15 +422,11 @@ final class AutoRegisterScanner {
 					continue;
 
 				final String className = name.substring(0, name.length() - 6);
-				Class<?> clazz = null;
+				final Class<?> clazz = loadClass(className);
 
 				// Look up the Java class, silently ignore if failing
-				try {
-					clazz = SimplePlugin.class.getClassLoader().loadClass(className);
-
-				} catch (final ClassFormatError | VerifyError | NoClassDefFoundError | ClassNotFoundException | IncompatibleClassChangeError error) {
+				if (clazz == null)
 					continue;
-				}
 
 				// Ignore abstract or anonymous classes
 				if (!Modifier.isAbstract(clazz.getModifiers()) && !anonymousClassPattern.matcher(className).find())
@@ -417,6 +440,95 @@ final class AutoRegisterScanner {
 		return classes;
 	}
 
+	/*
+	 * Return class names to register listed in index files in the given JAR, or null if it has none
+	 * or if they do not cover all classes of our plugin, for example after an incremental build
+	 * without the processor or when several JARs were merged into one
+	 */
+	private static List<String> readIndex(JarFile file) throws IOException {
+		final Map<String, Set<String>> indexedPackages = new HashMap<>();
+		final List<String> classNames = new ArrayList<>();
+
+		for (final Enumeration<JarEntry> entry = file.entries(); entry.hasMoreElements();) {
+			final JarEntry jar = entry.nextElement();
+
+			if (jar.isDirectory() || !jar.getName().startsWith(AutoRegisterProcessor.INDEX_FOLDER))
+				continue;
+
+			final String packageName = jar.getName().substring(AutoRegisterProcessor.INDEX_FOLDER.length());
+			final Set<String> packageClasses = indexedPackages.computeIfAbsent("default".equals(packageName) ? "" : packageName, key -> new HashSet<>());
+
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(jar), StandardCharsets.UTF_8))) {
+				String line;
+
+				while ((line = reader.readLine()) != null)
+					if (line.startsWith(AutoRegisterProcessor.CLASS_PREFIX))
+						packageClasses.add(line.substring(AutoRegisterProcessor.CLASS_PREFIX.length()).trim());
+
+					else if (line.startsWith(AutoRegisterProcessor.REGISTER_PREFIX))
+						classNames.add(line.substring(AutoRegisterProcessor.REGISTER_PREFIX.length()).trim());
+			}
+		}
+
+		if (indexedPackages.isEmpty())
+			return null;
+
+		final String foundationPackage = getPackageName(getPackageName(SimplePlugin.class.getName()));
+		final String pluginPackage = getPackageName(SimplePlugin.getInstance().getClass().getName());
+
+		for (final Enumeration<JarEntry> entry = file.entries(); entry.hasMoreElements();) {
+			final String name = entry.nextElement().getName().replace("/", ".");
+
+			if (!name.endsWith(".class") || name.endsWith("package-info.class") || name.endsWith("module-info.class"))
+				continue;
+
+			final String className = name.substring(0, name.length() - 6);
+			final String packageName = getPackageName(className);
+			final Set<String> packageClasses = indexedPackages.get(packageName);
+
+			// Foundation itself is compiled without the processor, see findValidClasses
+			if (isInPackage(packageName, foundationPackage))
+				continue;
+
+			// Classes of our plugin compiled without the processor, or an outdated index
+			if (packageClasses != null ? !packageClasses.contains(AutoRegisterProcessor.getTopLevelName(className)) : isInPackage(packageName, pluginPackage)) {
+				Common.log("Auto register index does not list " + className + ", scanning the whole JAR instead. Rebuild your plugin with AutoRegisterProcessor enabled.");
+
+				return null;
+			}
+		}
+
+		return classNames;
+	}
+
+	/*
+	 * Return the package of the given class or package name, or an empty string for the default package
+	 */
+	private static String getPackageName(String name) {
+		final int lastDot = name.lastIndexOf('.');
+
+		return lastDot == -1 ? "" : name.substring(0, lastDot);
+	}
+
+	/*
+	 * Return true if the package is the given parent package or its sub package
+	 */
+	private static boolean isInPackage(String packageName, String parentPackage) {
+		return packageName.equals(parentPackage) || packageName.startsWith(parentPackage + ".");
+	}
+
+	/*
+	 * Load the given class from our plugin, returning null if it cannot be loaded
+	 */
+	private static Class<?> loadClass(String className) {
+		try {
+			return SimplePlugin.class.getClassLoader().loadClass(className);
+
+		} catch (final ClassFormatError | VerifyError | NoClassDefFoundError | ClassNotFoundException | IncompatibleClassChangeError error) {
+			return null;
+		}
+	}
+
 	/*
 	 * Tries to return instance of the given class, either by returning its singleon
 	 * or creating a new instance from constructor if valid
@@ -86,47 +86,18 @@ final class FoundationPacketListener extends PacketListener {
 			final StructureModifier<List<ItemStack>> itemListModifier = packet.getItemListModifier();
 			for (int i = 0; i < itemListModifier.size(); i++) {
 				final List<ItemStack> itemStacks = itemListModifier.read(i);
-				if (itemStacks != null) {
-					boolean changed = false;
-					final int size = itemStacks.size();
-					for (int j = 0; j < size; j++) {
-
-						ItemStack item = itemStacks.get(j);
-						if (item != null && !CompMaterial.isAir(item) && !CompItemFlag.HIDE_ENCHANTS.has(item)) {
-							item = SimpleEnchantment.addEnchantmentLores(item);
-							if (item == null)
-								continue;
-
-							itemStacks.set(j, item);
-							changed = true;
-						}
-					}
-					if (changed)
-						itemListModifier.write(i, itemStacks);
-				}
+
+				if (itemStacks != null && SimpleEnchantment.addEnchantmentLores(itemStacks))
+					itemListModifier.write(i, itemStacks);
 			}
 
 			// Not needed for 1.13+ since they changed it to a list
 			final StructureModifier<ItemStack[]> itemArrayModifier = packet.getItemArrayModifier();
 			for (int i = 0; i < itemArrayModifier.size(); i++) {
 				final ItemStack[] itemStacks = itemArrayModifier.read(i);
-				if (itemStacks != null) {
-					boolean changed = false;
-
-					for (int j = 0; j < itemStacks.length; j++) {
-						ItemStack item = itemStacks[j];
-						if (item != null && !CompMaterial.isAir(item.getType()) && !CompItemFlag.HIDE_ENCHANTS.has(item)) {
-							item = SimpleEnchantment.addEnchantmentLores(item);
-							if (item == null)
-								continue;
-
-							itemStacks[j] = item;
-							changed = true;
-						}
-					}
-					if (changed)
-						itemArrayModifier.write(i, itemStacks);
-				}
+
+				if (itemStacks != null && SimpleEnchantment.addEnchantmentLores(itemStacks))
+					itemArrayModifier.write(i, itemStacks);
 			}
 		});
 
@@ -43,6 +43,7 @@ import org.mineacademy.fo.command.RegionCommand;
 import org.mineacademy.fo.command.SimpleCommand;
 import org.mineacademy.fo.command.SimpleCommandGroup;
 import org.mineacademy.fo.command.SimpleSubCommand;
+import org.mineacademy.fo.database.SimpleFlatDatabase;
 import org.mineacademy.fo.debug.Debugger;
 import org.mineacademy.fo.event.SimpleListener;
 import org.mineacademy.fo.exception.FoException;
@@ -57,7 +58,9 @@ import org.mineacademy.fo.model.HookManager;
 import org.mineacademy.fo.model.SimpleHologram;
 import org.mineacademy.fo.model.SimpleScoreboard;
 import org.mineacademy.fo.model.SpigotUpdater;
+import org.mineacademy.fo.model.Variables;
 import org.mineacademy.fo.region.DiskRegion;
+import org.mineacademy.fo.region.RegionTracker;
 import org.mineacademy.fo.remain.CompMetadata;
 import org.mineacademy.fo.remain.Remain;
 import org.mineacademy.fo.settings.FileConfig;
@@ -438,6 +441,9 @@ public abstract class SimplePlugin extends JavaPlugin implements Listener {
 			if (this.areToolsEnabled())
 				this.registerEvents(new ToolsListener());
 
+			if (this.areRegionsEnabled())
+				this.registerEvents(new RegionTracker());
+
 			// Register DiscordSRV listener
 			if (HookManager.isDiscordSRVLoaded()) {
 				final DiscordListener.DiscordListenerImpl discord = DiscordListener.DiscordListenerImpl.getInstance();
@@ -640,6 +646,9 @@ public abstract class SimplePlugin extends JavaPlugin implements Listener {
 	@Override
 	public final void onDisable() {
 
+		// Write queued database saves while connections are still open
+		SimpleFlatDatabase.flushAll();
+
 		try {
 			this.onPluginStop();
 		} catch (final Throwable t) {
@@ -684,6 +693,9 @@ public abstract class SimplePlugin extends JavaPlugin implements Listener {
 					t.printStackTrace();
 				}
 
+		// Write configurations still waiting to be saved off the main thread
+		FileConfig.flushSaves();
+
 		Objects.requireNonNull(instance, "Instance of " + this.getDataFolder().getName() + " already nulled!");
 		instance = null;
 	}
@@ -807,6 +819,9 @@ public abstract class SimplePlugin extends JavaPlugin implements Listener {
 		} finally {
 			Common.setLogPrefix(oldLogPrefix);
 
+			// Variables such as {label} or prefixes may have changed
+			Variables.clearCache();
+
 			reloading = false;
 		}
 	}
@@ -1200,6 +1215,7 @@ public abstract class SimplePlugin extends JavaPlugin implements Listener {
 
 	/**
 	 * Should we enable the region system? Loads {@link DiskRegion#loadRegions()}
+	 * and registers {@link RegionTracker} to fire region enter/leave events.
 	 * You still need to register the subcommand {@link RegionCommand} manually.
 	 *
 	 * @return
@@ -3,9 +3,12 @@ package org.mineacademy.fo.region;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -26,6 +29,7 @@ import org.mineacademy.fo.visual.VisualizedRegion;
 
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
 /**
@@ -41,6 +45,27 @@ public final class DiskRegion extends YamlConfig {
 	 */
 	private static final ConfigItems<DiskRegion> loadedRegions = ConfigItems.fromFolder("regions", DiskRegion.class);
 
+	/**
+	 * Regions spanning more chunks than this are not bucketed per chunk
+	 * but kept in a per-world list checked on every lookup instead
+	 */
+	private static final int MAX_INDEXED_CHUNKS = 4096;
+
+	/**
+	 * Bucket key used for regions too large to be indexed per chunk
+	 */
+	private static final long LARGE_REGIONS_KEY = Long.MIN_VALUE;
+
+	/**
+	 * Spatial index of whole regions by world name and chunk key
+	 */
+	private static final Map<String, Map<Long, List<DiskRegion>>> regionIndex = new ConcurrentHashMap<>();
+
+	/**
+	 * The world and chunk keys each region is currently indexed under, by region name
+	 */
+	private static final Map<String, IndexEntry> indexedRegions = new HashMap<>();
+
 	/**
 	 * The way for us to get the created region for a player, which is typically used in PlayerCache
 	 * in plugins and this class is not available at the library level.
@@ -231,13 +256,20 @@ public final class DiskRegion extends YamlConfig {
 	}
 
 	/**
+	 * Create a new region from a copy of the given border, so that changing the border
+	 * afterwards, such as selecting new points with the region tool, does not move the region
+	 *
 	 * @param name
 	 * @param region
 	 * @return
 	 * @see ConfigItems#loadOrCreateItem(String)
 	 */
 	public static DiskRegion createRegion(@NonNull final String name, @NonNull final VisualizedRegion region) {
-		return loadedRegions.loadOrCreateItem(name, () -> new DiskRegion(name, region));
+		final VisualizedRegion border = region.clone();
+		final DiskRegion diskRegion = loadedRegions.loadOrCreateItem(name, () -> new DiskRegion(name, border));
+
+		updateIndex(diskRegion);
+		return diskRegion;
 	}
 
 	/**
@@ -245,6 +277,8 @@ public final class DiskRegion extends YamlConfig {
 	 */
 	public static void loadRegions() {
 		loadedRegions.loadItems();
+
+		rebuildIndex();
 	}
 
 	/**
@@ -252,7 +286,134 @@ public final class DiskRegion extends YamlConfig {
 	 * @see ConfigItems#removeItem(org.mineacademy.fo.settings.YamlConfig)
 	 */
 	public static void removeRegion(final DiskRegion region) {
+		unindex(region.getName());
+
 		loadedRegions.removeItem(region);
+		RegionTracker.onRegionRemoved(region);
+	}
+
+	/**
+	 * Update the spatial index used by {@link #findRegions(Location)} for the given region.
+	 *
+	 * Call this after changing the points of a loaded region's border, creating, removing
+	 * and loading regions through this class does so automatically.
+	 *
+	 * @param region
+	 */
+	public static void updateIndex(@NonNull final DiskRegion region) {
+		synchronized (indexedRegions) {
+			unindex(region.getName());
+
+			final VisualizedRegion border = region.border;
+
+			if (border == null || !border.isWhole() || !loadedRegions.isItemLoaded(region.getName()))
+				return;
+
+			final Location primary = border.getPrimary();
+			final Location secondary = border.getSecondary();
+
+			final String world = primary.getWorld().getName();
+			final int minX = Math.min(primary.getBlockX(), secondary.getBlockX()) >> 4;
+			final int maxX = Math.max(primary.getBlockX(), secondary.getBlockX()) >> 4;
+			final int minZ = Math.min(primary.getBlockZ(), secondary.getBlockZ()) >> 4;
+			final int maxZ = Math.max(primary.getBlockZ(), secondary.getBlockZ()) >> 4;
+
+			final long[] keys;
+
+			if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) > MAX_INDEXED_CHUNKS)
+				keys = new long[] { LARGE_REGIONS_KEY };
+
+			else {
+				keys = new long[(maxX - minX + 1) * (maxZ - minZ + 1)];
+				int index = 0;
+
+				for (int chunkX = minX; chunkX <= maxX; chunkX++)
+					for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++)
+						keys[index++] = toChunkKey(chunkX, chunkZ);
+			}
+
+			final Map<Long, List<DiskRegion>> buckets = regionIndex.computeIfAbsent(world, key -> new ConcurrentHashMap<>());
+
+			for (final long key : keys)
+				buckets.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(region);
+
+			indexedRegions.put(region.getName(), new IndexEntry(world, keys, region));
+		}
+	}
+
+	/*
+	 * Remove the region from the spatial index
+	 */
+	private static void unindex(final String name) {
+		synchronized (indexedRegions) {
+			final IndexEntry entry = indexedRegions.remove(name);
+
+			if (entry == null)
+				return;
+
+			final Map<Long, List<DiskRegion>> buckets = regionIndex.get(entry.world);
+
+			if (buckets == null)
+				return;
+
+			for (final long key : entry.keys) {
+				final List<DiskRegion> bucket = buckets.get(key);
+
+				if (bucket != null) {
+					bucket.remove(entry.region);
+
+					if (bucket.isEmpty())
+						buckets.remove(key);
+				}
+			}
+
+			if (buckets.isEmpty())
+				regionIndex.remove(entry.world);
+		}
+	}
+
+	/*
+	 * Index all loaded regions from scratch
+	 */
+	private static void rebuildIndex() {
+		synchronized (indexedRegions) {
+			regionIndex.clear();
+			indexedRegions.clear();
+
+			for (final DiskRegion region : getRegions())
+				updateIndex(region);
+		}
+	}
+
+	/*
+	 * Return the regions whose chunk span covers the given location, not yet checked with isWithin
+	 */
+	private static List<DiskRegion> getIndexedCandidates(final Location location) {
+		final Map<Long, List<DiskRegion>> buckets = location.getWorld() != null ? regionIndex.get(location.getWorld().getName()) : null;
+
+		if (buckets == null)
+			return new ArrayList<>();
+
+		// Truncate the same way Region#isWithin does so both agree on edge blocks
+		final List<DiskRegion> bucket = buckets.get(toChunkKey((int) location.getX() >> 4, (int) location.getZ() >> 4));
+		final List<DiskRegion> large = buckets.get(LARGE_REGIONS_KEY);
+
+		final List<DiskRegion> candidates = new ArrayList<>((bucket != null ? bucket.size() : 0) + (large != null ? large.size() : 0));
+
+		if (bucket != null)
+			candidates.addAll(bucket);
+
+		if (large != null)
+			candidates.addAll(large);
+
+		return candidates;
+	}
+
+	/*
+	 * Pack chunk coordinates into a single key
+	 */
+	private static long toChunkKey(final int chunkX, final int chunkZ) {
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
 	}
 
 	/**
@@ -292,7 +453,7 @@ public final class DiskRegion extends YamlConfig {
 	public static List<DiskRegion> findRegions(final Location location) {
 		final List<DiskRegion> foundRegions = new ArrayList<>();
 
-		for (final DiskRegion region : getRegions())
+		for (final DiskRegion region : getIndexedCandidates(location))
 			if (region.border != null && region.border.isWhole() && region.border.isWithin(location))
 				foundRegions.add(region);
 
@@ -308,7 +469,7 @@ public final class DiskRegion extends YamlConfig {
 	public static List<String> findRegionNames(final Location location) {
 		final List<String> foundRegions = new ArrayList<>();
 
-		for (final DiskRegion region : getRegions())
+		for (final DiskRegion region : getIndexedCandidates(location))
 			if (region.border != null && region.border.isWhole() && region.border.isWithin(location))
 				foundRegions.add(region.getName());
 
@@ -330,4 +491,26 @@ public final class DiskRegion extends YamlConfig {
 	public static Set<String> getRegionNames() {
 		return loadedRegions.getItemNames();
 	}
+
+	/*
+	 * Where a region is stored in the spatial index
+	 */
+	@RequiredArgsConstructor
+	private static final class IndexEntry {
+
+		/**
+		 * The world name
+		 */
+		private final String world;
+
+		/**
+		 * The chunk keys the region is stored under
+		 */
+		private final long[] keys;
+
+		/**
+		 * The indexed region
+		 */
+		private final DiskRegion region;
+	}
 }
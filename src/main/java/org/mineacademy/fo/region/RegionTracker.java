@@ -0,0 +1,195 @@
+package org.mineacademy.fo.region;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.vehicle.VehicleMoveEvent;
+import org.mineacademy.fo.Common;
+import org.mineacademy.fo.event.RegionEnterEvent;
+import org.mineacademy.fo.event.RegionLeaveEvent;
+import org.mineacademy.fo.plugin.SimplePlugin;
+import org.mineacademy.fo.remain.Remain;
+
+import lombok.NonNull;
+
+/**
+ * Tracks which {@link DiskRegion}s each online player is in and fires
+ * {@link RegionEnterEvent} and {@link RegionLeaveEvent} when that changes.
+ *
+ * Regions are only looked up again when a player moves to another block,
+ * all other movement is a coordinate comparison.
+ *
+ * This is registered automatically when {@link SimplePlugin#areRegionsEnabled()} returns true.
+ */
+public final class RegionTracker implements Listener {
+
+	/**
+	 * The last evaluated block and regions for each online player
+	 */
+	private static final Map<UUID, TrackedPosition> positions = new HashMap<>();
+
+	/**
+	 * Return the regions the player was in when last evaluated
+	 *
+	 * @param player
+	 * @return
+	 */
+	public static Set<DiskRegion> getRegions(@NonNull final Player player) {
+		final TrackedPosition position = positions.get(player.getUniqueId());
+
+		return position != null ? Collections.unmodifiableSet(position.regions) : Collections.emptySet();
+	}
+
+	/**
+	 * Return true if the player was in the given region when last evaluated
+	 *
+	 * @param player
+	 * @param region
+	 * @return
+	 */
+	public static boolean isInRegion(@NonNull final Player player, @NonNull final DiskRegion region) {
+		final TrackedPosition position = positions.get(player.getUniqueId());
+
+		return position != null && position.regions.contains(region);
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onJoin(final PlayerJoinEvent event) {
+		update(event.getPlayer(), event.getPlayer().getLocation());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onQuit(final PlayerQuitEvent event) {
+		final Player player = event.getPlayer();
+		final TrackedPosition position = positions.remove(player.getUniqueId());
+
+		if (position != null)
+			for (final DiskRegion region : position.regions)
+				Common.callEvent(new RegionLeaveEvent(player, region));
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onMove(final PlayerMoveEvent event) {
+		update(event.getPlayer(), event.getTo());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onTeleport(final PlayerTeleportEvent event) {
+		update(event.getPlayer(), event.getTo());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onVehicleMove(final VehicleMoveEvent event) {
+		final Entity vehicle = event.getVehicle();
+
+		// Players riding vehicles do not fire PlayerMoveEvent
+		try {
+			for (final Entity passenger : vehicle.getPassengers())
+				if (passenger instanceof Player)
+					update((Player) passenger, event.getTo());
+
+		} catch (final NoSuchMethodError err) {
+			final Entity passenger = vehicle.getPassenger();
+
+			if (passenger instanceof Player)
+				update((Player) passenger, event.getTo());
+		}
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onRespawn(final PlayerRespawnEvent event) {
+		update(event.getPlayer(), event.getRespawnLocation());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onWorldChange(final PlayerChangedWorldEvent event) {
+		update(event.getPlayer(), event.getPlayer().getLocation());
+	}
+
+	/*
+	 * Re-evaluate the player's regions if they moved to another block and fire events for the difference
+	 */
+	private static void update(final Player player, final Location to) {
+		if (to == null || to.getWorld() == null)
+			return;
+
+		final TrackedPosition position = positions.get(player.getUniqueId());
+		final String world = to.getWorld().getName();
+		final int x = to.getBlockX(), y = to.getBlockY(), z = to.getBlockZ();
+
+		if (position != null && position.isAt(world, x, y, z))
+			return;
+
+		final Set<DiskRegion> regions = new LinkedHashSet<>(DiskRegion.findRegions(to));
+		final Set<DiskRegion> previous = position != null ? position.regions : Collections.emptySet();
+
+		positions.put(player.getUniqueId(), new TrackedPosition(world, x, y, z, regions));
+
+		for (final DiskRegion region : previous)
+			if (!regions.contains(region))
+				Common.callEvent(new RegionLeaveEvent(player, region));
+
+		for (final DiskRegion region : regions)
+			if (!previous.contains(region))
+				Common.callEvent(new RegionEnterEvent(player, region));
+	}
+
+	/*
+	 * Fire leave events for players inside a region that is being removed
+	 */
+	static void onRegionRemoved(final DiskRegion region) {
+		final List<Player> players = new ArrayList<>();
+
+		for (final Map.Entry<UUID, TrackedPosition> entry : positions.entrySet())
+			if (entry.getValue().regions.remove(region)) {
+				final Player player = Remain.getPlayerByUUID(entry.getKey());
+
+				if (player != null)
+					players.add(player);
+			}
+
+		// Fire after iterating since listeners may move players around
+		for (final Player player : players)
+			Common.callEvent(new RegionLeaveEvent(player, region));
+	}
+
+	/*
+	 * The block and regions a player was last evaluated at
+	 */
+	private static final class TrackedPosition {
+
+		private final String world;
+		private final int x, y, z;
+		private final Set<DiskRegion> regions;
+
+		private TrackedPosition(final String world, final int x, final int y, final int z, final Set<DiskRegion> regions) {
+			this.world = world;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.regions = regions;
+		}
+
+		private boolean isAt(final String world, final int x, final int y, final int z) {
+			return this.x == x && this.y == y && this.z == z && this.world.equals(world);
+		}
+	}
+}
@@ -1,13 +1,21 @@
 package org.mineacademy.fo.settings;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -35,7 +43,7 @@ public final class ConfigItems<T extends YamlConfig> {
 	/**
 	 * A list of all loaded items
 	 */
-	private final StrictMap<String, T> loadedItemsMap = new StrictMap<>();
+	private volatile StrictMap<String, T> loadedItemsMap = new StrictMap<>();
 
 	/**
 	 * The item type this class stores, such as "variable, "format", or "arena class"
@@ -67,6 +75,11 @@ public final class ConfigItems<T extends YamlConfig> {
 	 */
 	private final boolean singleFile;
 
+	/**
+	 * Should we read and parse item files on multiple threads when loading a folder?
+	 */
+	private boolean parallelLoading = false;
+
 	/**
 	 * Create a new config items instance
 	 *
@@ -146,6 +159,12 @@ public final class ConfigItems<T extends YamlConfig> {
 	 */
 	public void loadItems(@Nullable Function<File, T> loader) {
 
+		if (this.parallelLoading && !this.singleFile && loader == null) {
+			this.loadItemsParallel();
+
+			return;
+		}
+
 		// Clear old items
 		this.loadedItemsMap.clear();
 
@@ -176,6 +195,84 @@ public final class ConfigItems<T extends YamlConfig> {
 		}
 	}
 
+	/*
+	 * Read and parse all item files on worker threads, then create items from the parsed
+	 * contents on this thread and replace loaded items at once when all were created
+	 */
+	private void loadItemsParallel() {
+
+		// Try copy items from our JAR
+		if (!FileUtil.getFile(this.folder).exists())
+			FileUtil.extractFolderFromJar(this.folder + "/", this.folder);
+
+		final File[] files = FileUtil.getFiles(this.folder, "yml");
+		final int threads = Math.min(files.length, Runtime.getRuntime().availableProcessors());
+
+		if (threads > 1) {
+			final ExecutorService executor = Executors.newFixedThreadPool(threads);
+			final ThreadLocal<YamlConfig> parsers = ThreadLocal.withInitial(YamlConfig::new);
+			final List<Future<?>> futures = new ArrayList<>();
+
+			for (final File file : files)
+				futures.add(executor.submit(() -> {
+					try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+						FileConfig.preparse(file, parsers.get().parseContents(FileConfig.readContents(reader)));
+
+					} catch (final Throwable t) {
+						// Loaded again on the main thread which reports the error
+					}
+				}));
+
+			try {
+				for (final Future<?> future : futures)
+					future.get();
+
+			} catch (final InterruptedException | ExecutionException ex) {
+				Common.error(ex, "Failed to parse " + this.folder + " in parallel, loading remaining files one by one");
+
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		final StrictMap<String, T> newItems = new StrictMap<>();
+
+		try {
+			for (final File file : files) {
+				final String name = FileUtil.getFileName(file);
+
+				Valid.checkBoolean(!newItems.containsKey(name), "Item " + (this.type == null ? "" : this.type + " ") + "named " + name + " already exists! Available: " + newItems.keySet());
+				newItems.put(name, this.createItem(name, null));
+			}
+
+		} finally {
+			for (final File file : files)
+				FileConfig.discardPreparsed(file);
+		}
+
+		this.loadedItemsMap = newItems;
+	}
+
+	/**
+	 * Set if we should read and parse item files on multiple threads when loading a folder
+	 * in {@link #loadItems()}. Items are still created, objects such as items and locations
+	 * deserialized and their onLoad() called on the calling thread, and replace previously
+	 * loaded items only once all were created.
+	 *
+	 * Unlike sequential loading, items looking up other items of this instance in their onLoad()
+	 * see the items loaded before this call, not the ones created so far in this load.
+	 *
+	 * Ignored for single file items or when using a custom loader.
+	 *
+	 * @param parallelLoading
+	 * @return
+	 */
+	public ConfigItems<T> setParallelLoading(boolean parallelLoading) {
+		this.parallelLoading = parallelLoading;
+
+		return this;
+	}
+
 	/**
 	 * Create the class (make new instance of) by the given name,
 	 * the class must have a private constructor taking in the String (name) or nothing
@@ -200,7 +297,18 @@ public final class ConfigItems<T extends YamlConfig> {
 	public T loadOrCreateItem(@NonNull final String name, @Nullable Supplier<T> instantiator) {
 		Valid.checkBoolean(!this.isItemLoaded(name), "Item " + (this.type == null ? "" : this.type + " ") + "named " + name + " already exists! Available: " + this.getItemNames());
 
-		// Create a new instance of our item
+		final T item = this.createItem(name, instantiator);
+
+		// Register
+		this.loadedItemsMap.put(name, item);
+
+		return item;
+	}
+
+	/*
+	 * Create a new instance of our item without registering it
+	 */
+	private T createItem(@NonNull final String name, @Nullable Supplier<T> instantiator) {
 		T item = null;
 
 		try {
@@ -244,9 +352,6 @@ public final class ConfigItems<T extends YamlConfig> {
 				}
 			}
 
-			// Register
-			this.loadedItemsMap.put(name, item);
-
 		} catch (final Throwable t) {
 			Common.throwError(t, "Failed to load" + name + (this.singleFile ? "" : " from " + this.folder));
 		}
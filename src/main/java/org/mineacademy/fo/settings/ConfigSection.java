@@ -4,6 +4,10 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
 
 import org.mineacademy.fo.Valid;
 import org.mineacademy.fo.collection.SerializedMap;
@@ -42,6 +46,18 @@ public class ConfigSection {
 	 */
 	private final String fullPath;
 
+	/**
+	 * All values of this configuration by their full path, built when first needed
+	 * and updated on the changed path only. Only used on the root section.
+	 */
+	private volatile PathIndex pathIndex;
+
+	/**
+	 * Incremented on every change while holding the lock of the root section,
+	 * so that an index or a conversion made during a change is not kept. Only used on the root section.
+	 */
+	private volatile long version;
+
 	ConfigSection() {
 		this.path = "";
 		this.fullPath = "";
@@ -104,6 +120,8 @@ public class ConfigSection {
 	 */
 	public final void clear() {
 		this.map.clear();
+
+		this.invalidateIndex();
 	}
 
 	/**
@@ -154,6 +172,8 @@ public class ConfigSection {
 				this.map.remove(key);
 			else
 				this.map.put(key, value);
+
+			this.reindex(this.toFullPath(key), value);
 		} else
 			section.store(key, value);
 	}
@@ -172,26 +192,182 @@ public class ConfigSection {
 		if (this.root == null)
 			throw new IllegalStateException("Cannot access section without a root");
 
+		final Map<String, Object> index = this.root.getPathIndex().values;
+
+		// Sections removed from their parent are no longer indexed
+		if (this != this.root && index.get(this.fullPath) != this)
+			return this.retrieveUnindexed(path);
+
+		return index.get(this.toFullPath(path));
+	}
+
+	/*
+	 * Walk the sections on the given path to find its value
+	 */
+	private Object retrieveUnindexed(String path) {
 		int leadingIndex = -1, trailingIndex;
 		ConfigSection section = this;
 		while ((leadingIndex = path.indexOf('.', trailingIndex = leadingIndex + 1)) != -1) {
-			final String currentPath = path.substring(trailingIndex, leadingIndex);
+			final Object value = section.map.get(path.substring(trailingIndex, leadingIndex));
 
-			if (section.retrieve(currentPath) == null)
+			if (!(value instanceof ConfigSection))
 				return null;
 
-			section = section.retrieveConfigurationSection(currentPath);
+			section = (ConfigSection) value;
+		}
+
+		return section.map.get(path.substring(trailingIndex));
+	}
 
-			if (section == null)
-				return null;
+	/*
+	 * Return the value at the given path converted by the given function, reusing the
+	 * conversion until this configuration changes, or null if there is no value.
+	 *
+	 * The key tells apart different conversions of the same value, the function must
+	 * not return null and the result must not be modified since it is shared.
+	 */
+	@SuppressWarnings("unchecked")
+	final <T> T retrieveConverted(@NonNull String path, @NonNull Object key, @NonNull Function<Object, T> converter) {
+		if (this.root == null)
+			throw new IllegalStateException("Cannot access section without a root");
+
+		final long version = this.root.version;
+		final PathIndex index = this.root.getPathIndex();
+
+		// Do not cache values of sections removed from their parent
+		if (this != this.root && index.values.get(this.fullPath) != this) {
+			final Object raw = this.retrieveUnindexed(path);
+
+			return raw != null ? converter.apply(raw) : null;
 		}
 
-		final String key = path.substring(trailingIndex);
+		final String fullPath = this.toFullPath(path);
+		final Object raw = index.values.get(fullPath);
+
+		if (raw == null)
+			return null;
+
+		final Map<Object, Object> converted = index.convertedValues.computeIfAbsent(fullPath, unused -> new ConcurrentHashMap<>());
+		Object value = converted.get(key);
+
+		if (value == null) {
+			value = converter.apply(raw);
+
+			converted.put(key, value);
+
+			// A change made meanwhile may have dropped conversions of this path before we put ours
+			if (this.root.version != version)
+				index.convertedValues.remove(fullPath, converted);
+		}
+
+		return (T) value;
+	}
+
+	/*
+	 * Return the index of all values in this root section, building it if it was not built yet or discarded
+	 */
+	private PathIndex getPathIndex() {
+		PathIndex index = this.pathIndex;
+
+		if (index == null) {
+			final long version = this.version;
 
-		if (section == this)
-			return this.map.get(key);
+			index = new PathIndex();
+			indexValues(index.values, this, "");
 
-		return section.retrieve(key);
+			// Changes made while building are not in the index, and are only applied to a published one
+			synchronized (this) {
+				if (this.version == version && this.pathIndex == null)
+					this.pathIndex = index;
+			}
+		}
+
+		return index;
+	}
+
+	/*
+	 * Put all values from the section and its children to the index, skipping keys with
+	 * dots in them since they cannot be reached using a path
+	 */
+	private static void indexValues(Map<String, Object> index, ConfigSection section, String prefix) {
+		for (final Map.Entry<String, Object> entry : section.map.entrySet()) {
+			final String key = entry.getKey();
+
+			if (key.indexOf('.') != -1)
+				continue;
+
+			final String path = prefix.isEmpty() ? key : prefix + "." + key;
+			final Object value = entry.getValue();
+
+			index.put(path, value);
+
+			if (value instanceof ConfigSection)
+				indexValues(index, (ConfigSection) value, path);
+		}
+	}
+
+	/*
+	 * Convert the path relative to this section into a path relative to the root
+	 */
+	private String toFullPath(String path) {
+		return this.fullPath.isEmpty() ? path : this.fullPath + "." + path;
+	}
+
+	/*
+	 * Update the index of the root section after the value at the given full path changed in this section,
+	 * replacing the indexed values on that path and below. Conversions of the path, its children and its
+	 * parents are dropped, since a parent section may have been converted together with its children.
+	 */
+	private void reindex(String fullPath, Object value) {
+		final ConfigSection root = this.root;
+
+		synchronized (root) {
+			root.version++;
+
+			final PathIndex index = root.pathIndex;
+
+			// Nothing is indexed yet, or this section is not reachable from the root
+			if (index == null || this != root && index.values.get(this.fullPath) != this)
+				return;
+
+			index.values.remove(fullPath);
+			index.values.subMap(fullPath + ".", fullPath + "/").clear();
+
+			if (value != null) {
+				index.values.put(fullPath, value);
+
+				if (value instanceof ConfigSection)
+					indexValues(index.values, (ConfigSection) value, fullPath);
+			}
+
+			index.convertedValues.subMap(fullPath + ".", fullPath + "/").clear();
+
+			for (String path = fullPath;; path = path.substring(0, path.lastIndexOf('.'))) {
+				index.convertedValues.remove(path);
+
+				if (path.indexOf('.') == -1)
+					break;
+			}
+		}
+	}
+
+	/*
+	 * Index this section and its children again, called after changes made directly to its map.
+	 * Discards the whole index when called on the root section.
+	 */
+	final void invalidateIndex() {
+		final ConfigSection root = this.root;
+
+		if (this != root) {
+			this.reindex(this.fullPath, this);
+
+			return;
+		}
+
+		synchronized (root) {
+			root.version++;
+			root.pathIndex = null;
+		}
 	}
 
 	/**
@@ -235,6 +411,8 @@ public class ConfigSection {
 		if (section == this) {
 			final ConfigSection result = new ConfigSection(this, key);
 			this.map.put(key, result);
+
+			this.reindex(this.toFullPath(key), result);
 			return result;
 		}
 		return section.createSection(key);
@@ -358,4 +536,20 @@ public class ConfigSection {
 				.append("', keys=" + this.map + "]")
 				.toString();
 	}
+
+	/*
+	 * Values of a root section by their full path together with their conversions
+	 */
+	private static final class PathIndex {
+
+		/**
+		 * Values by their full path, sorted so that values below a path can be found as a range
+		 */
+		private final ConcurrentNavigableMap<String, Object> values = new ConcurrentSkipListMap<>();
+
+		/**
+		 * Values converted by FileConfig by their full path and conversion key
+		 */
+		private final ConcurrentNavigableMap<String, Map<Object, Object>> convertedValues = new ConcurrentSkipListMap<>();
+	}
 }
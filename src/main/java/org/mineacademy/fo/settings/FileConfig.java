@@ -4,11 +4,15 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -21,7 +25,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
 
@@ -51,6 +61,7 @@ import org.mineacademy.fo.remain.Remain;
 
 import lombok.AccessLevel;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
 /**
@@ -64,6 +75,33 @@ public abstract class FileConfig {
 	 */
 	private static final Map<String, ConfigSection> loadedSections = new HashMap<>();
 
+	/**
+	 * Contents parsed ahead of loading by absolute file path, consumed by the next load(File)
+	 * of that file instead of reading and parsing it again. See {@link ConfigItems#setParallelLoading(boolean)}
+	 */
+	private static final Map<String, Object> preparsedContents = new ConcurrentHashMap<>();
+
+	/**
+	 * Snapshots waiting to be written by absolute file path, see {@link #saveAsync()}.
+	 * Saving the same file again before it was written replaces its snapshot.
+	 */
+	private static final Map<String, PendingSave> pendingSaves = new ConcurrentHashMap<>();
+
+	/**
+	 * Locks by absolute file path, held while writing so that writes of the same file never overlap
+	 */
+	private static final Map<String, Object> saveLocks = new ConcurrentHashMap<>();
+
+	/**
+	 * The worker writing pending saves, its thread stops when idle
+	 */
+	private static final ExecutorService saveExecutor = new ThreadPoolExecutor(0, 1, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+		final Thread thread = new Thread(runnable, "Foundation Config Saver");
+
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	/**
 	 * Represents "null" which you can use as convenience shortcut in loading config
 	 * that has no internal from path.
@@ -89,6 +127,11 @@ public abstract class FileConfig {
 	 */
 	ConfigSection section = new ConfigSection();
 
+	/*
+	 * The key under which we cache values converted by getString, since they differ from get(path, String.class)
+	 */
+	private static final String STRING_CONVERSION_KEY = "String";
+
 	/*
 	 * Optional defaults section to copy values from
 	 */
@@ -208,31 +251,67 @@ public abstract class FileConfig {
 
 		path = this.buildPathPrefix(path);
 
+		// Reuse the last conversion of immutable values, defaults are never copied for existing values
+		if (isCacheable(type, deserializeParams)) {
+			final String finalPath = path;
+			final T converted = this.section.retrieveConverted(path, type, raw -> this.convert(finalPath, raw, type, deserializeParams));
+
+			if (converted != null)
+				return converted;
+		}
+
 		// Copy defaults if not set and log about this change
 		this.copyDefault(path, type);
 
-		Object raw = this.section.retrieve(path);
+		final Object raw = this.section.retrieve(path);
 
 		if (this.defaults != null && def == null)
 			Valid.checkNotNull(raw, "Failed to set '" + path + "' to " + type.getSimpleName() + " from default config's value: " + this.defaults.retrieve(path));
 
-		if (raw != null) {
+		if (raw != null)
+			return this.convert(path, raw, type, deserializeParams);
 
-			// Workaround for empty lists
-			if (raw.equals("[]") && type == List.class)
-				raw = new ArrayList<>();
+		return def;
+	}
 
-			// Retype manually
-			if (type == Long.class && raw instanceof Integer)
-				raw = ((Integer) raw).longValue();
+	/*
+	 * Deserialize the raw value at the given path into the given type
+	 */
+	private <T> T convert(final String path, Object raw, final Class<T> type, final Object... deserializeParams) {
 
-			raw = SerializeUtil.deserialize(this.mode, type, raw, deserializeParams);
-			this.checkAssignable(path, raw, type);
+		// Workaround for empty lists
+		if (raw.equals("[]") && type == List.class)
+			raw = new ArrayList<>();
 
-			return (T) raw;
-		}
+		// Retype manually
+		if (type == Long.class && raw instanceof Integer)
+			raw = ((Integer) raw).longValue();
 
-		return def;
+		raw = SerializeUtil.deserialize(this.mode, type, raw, deserializeParams);
+		this.checkAssignable(path, raw, type);
+
+		return (T) raw;
+	}
+
+	/*
+	 * Return true if values of the given type cannot be modified so we can share
+	 * one converted instance, see ConfigSection#retrieveConverted
+	 */
+	private static boolean isCacheable(final Class<?> type, final Object... deserializeParams) {
+		if (deserializeParams != null && deserializeParams.length > 0)
+			return false;
+
+		return type == String.class
+				|| type == Boolean.class
+				|| type == Integer.class
+				|| type == Long.class
+				|| type == Double.class
+				|| type == Float.class
+				|| type == Short.class
+				|| type == Byte.class
+				|| type == Character.class
+				|| type == SimpleTime.class
+				|| type.isEnum();
 	}
 
 	/*
@@ -292,12 +371,21 @@ public abstract class FileConfig {
 	 * @return
 	 */
 	public final String getString(final String path, final String def) {
+		final String converted = this.section.retrieveConverted(this.buildPathPrefix(path), STRING_CONVERSION_KEY, raw -> this.convertToString(path, raw));
+
+		if (converted != null)
+			return converted;
+
 		final Object object = this.getObject(path, def);
 
-		if (object == null)
-			return null;
+		return object != null ? this.convertToString(path, object) : null;
+	}
 
-		else if (object instanceof List)
+	/*
+	 * Convert the value at the given path into a string, joining lists by new lines
+	 */
+	private String convertToString(final String path, final Object object) {
+		if (object instanceof List)
 			return Common.join((List<?>) object, "\n");
 
 		else if (object instanceof String[])
@@ -916,6 +1004,22 @@ public abstract class FileConfig {
 	 * @return
 	 */
 	public final <T> List<T> getList(final String path, final Class<T> type, final Object... deserializeParameters) {
+
+		// Reuse the last conversion of immutable values and only copy the list
+		if (isCacheable(type, deserializeParameters)) {
+			final List<T> converted = this.section.retrieveConverted(this.buildPathPrefix(path), Arrays.asList(List.class, type), raw -> this.loadList(path, type));
+
+			if (converted != null)
+				return new ArrayList<>(converted);
+		}
+
+		return this.loadList(path, type, deserializeParameters);
+	}
+
+	/*
+	 * Load and deserialize the list at the given path
+	 */
+	private <T> List<T> loadList(final String path, final Class<T> type, final Object... deserializeParameters) {
 		final List<T> list = new ArrayList<>();
 		final List<Object> objects = this.getList(path);
 
@@ -986,8 +1090,6 @@ public abstract class FileConfig {
 	 */
 	public final <Key, Value> LinkedHashMap<Key, Value> getMap(@NonNull String path, final Class<Key> keyType, final Class<Value> valueType, Object... valueDeserializeParams) {
 
-		// The map we are creating, preserve order
-		final LinkedHashMap<Key, Value> map = new LinkedHashMap<>();
 		final boolean exists = this.isSet(path);
 
 		// Add path prefix right away
@@ -1001,6 +1103,24 @@ public abstract class FileConfig {
 				this.copyDefault(path + "." + key, valueType);
 		}
 
+		// Reuse the last conversion of immutable keys and values and only copy the map
+		if (isCacheable(keyType) && isCacheable(valueType, valueDeserializeParams)) {
+			final String finalPath = path;
+			final LinkedHashMap<Key, Value> converted = this.section.retrieveConverted(path, Arrays.asList(Map.class, keyType, valueType), raw -> this.loadMap(finalPath, keyType, valueType));
+
+			if (converted != null)
+				return new LinkedHashMap<>(converted);
+		}
+
+		return this.loadMap(path, keyType, valueType, valueDeserializeParams);
+	}
+
+	/*
+	 * Load and deserialize the map at the given path, which already includes the path prefix
+	 */
+	private <Key, Value> LinkedHashMap<Key, Value> loadMap(final String path, final Class<Key> keyType, final Class<Value> valueType, final Object... valueDeserializeParams) {
+		final LinkedHashMap<Key, Value> map = new LinkedHashMap<>();
+
 		// Load key-value pairs from config to our map
 		final Object savedKeys = this.section.retrieve(path);
 
@@ -1187,8 +1307,12 @@ public abstract class FileConfig {
 			Valid.checkBoolean(!this.loading, "Called load(" + file + ") on already being loaded configuration!");
 			this.loading = true;
 
-			final FileInputStream stream = new FileInputStream(file);
 			final String path = file.getAbsolutePath();
+			final Object preparsed = preparsedContents.remove(path);
+
+			// Write pending changes first so we do not read an outdated file
+			writePendingSave(path);
+
 			boolean loadedBefore = false;
 			ConfigSection section = loadedSections.get(path);
 
@@ -1206,8 +1330,10 @@ public abstract class FileConfig {
 
 			if (loadedBefore && !this.alwaysLoad) {
 				// Do not load
-			} else
-				this.load(new InputStreamReader(stream, StandardCharsets.UTF_8));
+			} else if (preparsed != null)
+				this.loadFromParsed(preparsed);
+			else
+				this.load(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
 
 			try {
 				this.onLoad();
@@ -1237,26 +1363,33 @@ public abstract class FileConfig {
 	 */
 	private final void load(@NonNull Reader reader) {
 		try {
-			final BufferedReader input = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
-			final StringBuilder builder = new StringBuilder();
+			this.loadFromString(readContents(reader));
 
-			try {
-				String line;
+		} catch (final Exception ex) {
+			Remain.sneaky(ex);
+		}
+	}
 
-				while ((line = input.readLine()) != null) {
-					builder.append(line);
-					builder.append('\n');
-				}
+	/*
+	 * Read all lines from the given reader, closing it afterwards
+	 */
+	static final String readContents(@NonNull Reader reader) throws IOException {
+		final BufferedReader input = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+		final StringBuilder builder = new StringBuilder();
 
-			} finally {
-				input.close();
-			}
+		try {
+			String line;
 
-			this.loadFromString(builder.toString());
+			while ((line = input.readLine()) != null) {
+				builder.append(line);
+				builder.append('\n');
+			}
 
-		} catch (final Exception ex) {
-			Remain.sneaky(ex);
+		} finally {
+			input.close();
 		}
+
+		return builder.toString();
 	}
 
 	/**
@@ -1266,6 +1399,37 @@ public abstract class FileConfig {
 	 */
 	abstract void loadFromString(@NonNull String contents);
 
+	/**
+	 * Implementation by specific configuration type to parse the given string contents
+	 * without changing this configuration. Must be safe to call from any thread.
+	 *
+	 * @param contents
+	 * @return the parsed contents to pass to {@link #loadFromParsed(Object)}
+	 */
+	abstract Object parseContents(@NonNull String contents);
+
+	/**
+	 * Implementation by specific configuration type to load configuration from contents
+	 * returned by {@link #parseContents(String)}.
+	 *
+	 * @param parsed
+	 */
+	abstract void loadFromParsed(@NonNull Object parsed);
+
+	/*
+	 * Store parsed contents for the given file to be used by its next load(File)
+	 */
+	static final void preparse(@NonNull File file, @NonNull Object parsed) {
+		preparsedContents.put(file.getAbsolutePath(), parsed);
+	}
+
+	/*
+	 * Remove parsed contents for the given file if they were not used
+	 */
+	static final void discardPreparsed(@NonNull File file) {
+		preparsedContents.remove(file.getAbsolutePath());
+	}
+
 	/**
 	 * Called automatically when the configuration has been loaded, used to load your
 	 * fields in your class here.
@@ -1332,15 +1496,15 @@ public abstract class FileConfig {
 				if (parent != null)
 					parent.mkdirs();
 
-				final String data = this.saveToString();
+				final String path = file.getAbsolutePath();
+				final Supplier<String> snapshot = this.saveAsync() ? this.snapshot() : null;
 
-				if (data != null)
-					try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
-						writer.write(data);
+				if (snapshot != null) {
+					if (pendingSaves.put(path, new PendingSave(file, snapshot)) == null)
+						saveExecutor.execute(() -> writePendingSave(path));
 
-					} catch (final Exception ex) {
-						Remain.sneaky(ex);
-					}
+				} else
+					writeNow(file, this::dumpToString);
 
 				// Update file
 				this.file = file;
@@ -1403,6 +1567,19 @@ public abstract class FileConfig {
 		return false;
 	}
 
+	/**
+	 * Return true to save this configuration off the main thread. We then copy its values when
+	 * calling save() and write them later from another thread, repeated saves of the same file
+	 * before that are written only once. Use {@link #flushSaves()} to write all pending saves.
+	 *
+	 * Files saved with comments using the comments engine are always saved immediately.
+	 *
+	 * @return
+	 */
+	protected boolean saveAsync() {
+		return false;
+	}
+
 	/**
 	 * Implementation by specific configurations to generate file contents to save.
 	 *
@@ -1411,6 +1588,109 @@ public abstract class FileConfig {
 	@NonNull
 	public abstract String saveToString();
 
+	/**
+	 * Implementation by specific configurations to copy values to save on the calling thread,
+	 * returning a function generating file contents from the copy on any thread, or null if
+	 * this configuration cannot be saved that way.
+	 *
+	 * @return
+	 */
+	@Nullable
+	abstract Supplier<String> snapshot();
+
+	/**
+	 * Implementation by specific configurations to generate file contents to save,
+	 * unlike {@link #saveToString()} this never writes the file itself.
+	 *
+	 * @return
+	 */
+	abstract String dumpToString();
+
+	/**
+	 * Write all configurations waiting to be saved off the main thread, blocking until done.
+	 * Called automatically when the plugin disables.
+	 */
+	public static final void flushSaves() {
+		for (final String path : new ArrayList<>(pendingSaves.keySet()))
+			writePendingSave(path);
+	}
+
+	/*
+	 * Write the pending save of the given file, if any
+	 */
+	private static void writePendingSave(final String path) {
+		if (!pendingSaves.containsKey(path))
+			return;
+
+		synchronized (getSaveLock(path)) {
+			final PendingSave save = pendingSaves.remove(path);
+
+			if (save != null)
+				try {
+					writeAtomically(save.file, save.snapshot.get(), true);
+
+				} catch (final Throwable t) {
+					Common.error(t, "Failed to save " + save.file);
+				}
+		}
+	}
+
+	/*
+	 * Write the data to the given file right away, replacing any save pending for it
+	 */
+	static final void writeNow(final File file, final Supplier<String> data) {
+		final String path = file.getAbsolutePath();
+
+		// An older pending save must not overwrite what we write now,
+		// and the comments engine reads the file before we replace it
+		synchronized (getSaveLock(path)) {
+			pendingSaves.remove(path);
+
+			writeAtomically(file, data.get(), false);
+		}
+	}
+
+	/*
+	 * Return the lock held while writing the file at the given absolute path
+	 */
+	private static Object getSaveLock(final String path) {
+		return saveLocks.computeIfAbsent(path, key -> new Object());
+	}
+
+	/*
+	 * Write the data to a temporary file first and then move it in place of the given file,
+	 * so that it is never left half written, optionally forcing the data to disk first
+	 */
+	private static void writeAtomically(final File file, final String data, final boolean sync) {
+		final File temporary = new File(file.getParentFile(), file.getName() + ".tmp");
+
+		try (FileOutputStream stream = new FileOutputStream(temporary); Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8)) {
+			writer.write(data);
+			writer.flush();
+
+			if (sync)
+				stream.getFD().sync();
+
+		} catch (final Exception ex) {
+			Remain.sneaky(ex);
+		}
+
+		try {
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		} catch (final AtomicMoveNotSupportedException ex) {
+			try {
+				Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+			} catch (final IOException ioex) {
+				Remain.sneaky(ioex);
+			}
+
+		} catch (final IOException ex) {
+			Remain.sneaky(ex);
+		}
+	}
+
 	/**
 	 * Override to implement custom saving mechanism, used automatically in onSave()
 	 * you can return only the data you actually want to save here.
@@ -1440,6 +1720,11 @@ public abstract class FileConfig {
 	public final void deleteFile() {
 		Valid.checkNotNull(this.file, "Cannot unregister null file before settings were loaded!");
 
+		// Prevent a pending save from creating the file again
+		synchronized (getSaveLock(this.file.getAbsolutePath())) {
+			pendingSaves.remove(this.file.getAbsolutePath());
+		}
+
 		if (this.file.exists())
 			this.file.delete();
 
@@ -1588,6 +1873,15 @@ public abstract class FileConfig {
 	// Classes
 	// ------------------------------------------------------------------------------------
 
+	/*
+	 * A snapshot waiting to be written to the file
+	 */
+	@RequiredArgsConstructor
+	private static final class PendingSave {
+		private final File file;
+		private final Supplier<String> snapshot;
+	}
+
 	/**
 	 * Language-specific helper to deal with different cases when i.e. counting:
 	 *
@@ -2,10 +2,8 @@ package org.mineacademy.fo.settings;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
+import java.io.StringWriter;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -44,14 +42,16 @@ import lombok.SneakyThrows;
 final class YamlComments {
 
 	/**
-	 * Update a yaml file from a resource inside your plugin jar
+	 * Return the content of a yaml file updated from a resource inside your plugin jar,
+	 * the caller is responsible for writing it to the file
 	 *
 	 * @param resourceName The yaml file name to update from, typically config.yml
 	 * @param toUpdate The yaml file to update
 	 * @param ignoredSections The sections to ignore from being forcefully updated & comments set
+	 * @return the updated file content
 	 */
 	@SneakyThrows
-	public static void writeComments(@NonNull String resourceName, @NonNull File toUpdate, @NonNull List<String> ignoredSections) {
+	public static String writeComments(@NonNull String resourceName, @NonNull File toUpdate, @NonNull List<String> ignoredSections) {
 
 		final List<String> newLines = FileUtil.getInternalFileContent(resourceName);
 
@@ -73,7 +73,8 @@ final class YamlComments {
 			Remain.sneaky(t);
 		}
 
-		final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(toUpdate), StandardCharsets.UTF_8));
+		final StringWriter content = new StringWriter();
+		final BufferedWriter writer = new BufferedWriter(content);
 
 		// ignoredSections can ONLY contain configurations sections
 		for (final String ignoredSection : ignoredSections)
@@ -117,6 +118,8 @@ final class YamlComments {
 		final Map<String, String> comments = parseComments(newLines, currentConfig);
 
 		write(defaultConfig, currentConfig, comments, ignoredSections, writer, yaml);
+
+		return content.toString();
 	}
 
 	// Write method doing the work.
@@ -4,9 +4,13 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 import javax.annotation.Nullable;
@@ -16,6 +20,7 @@ import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.mineacademy.fo.FileUtil;
 import org.mineacademy.fo.ReflectionUtil;
+import org.mineacademy.fo.model.Tuple;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
@@ -39,6 +44,11 @@ public class YamlConfig extends FileConfig {
 	 */
 	private final Yaml yaml;
 
+	/**
+	 * Used to dump snapshots taken by {@link #snapshot()}, one per thread since Yaml is not thread safe
+	 */
+	private static final ThreadLocal<YamlConfig> snapshotDumpers = ThreadLocal.withInitial(YamlConfig::new);
+
 	/**
 	 * Should we save empty sections or null values (requires NO default file)
 	 */
@@ -216,12 +226,32 @@ public class YamlConfig extends FileConfig {
 	}
 
 	/*
-	 * Dumps all values in this config into a saveable format
+	 * Dumps all values in this config into a saveable format.
+	 *
+	 * When saving comments, this writes the file using the comments engine
+	 * and returns null instead.
 	 */
 	@NonNull
 	@Override
 	public final String saveToString() {
 
+		// Special case, write using comments engine
+		if (this.defaults != null && this.saveComments()) {
+			writeNow(this.file, this::dumpToString);
+
+			return null;
+		}
+
+		return this.dumpToString();
+	}
+
+	/*
+	 * Dumps all values in this config into a saveable format, using the comments engine
+	 * to update the current file content if we save comments
+	 */
+	@Override
+	final String dumpToString() {
+
 		// Do not use comments
 		if (this.defaults == null || !this.saveComments()) {
 			String header = "";
@@ -248,9 +278,98 @@ public class YamlConfig extends FileConfig {
 		}
 
 		// Special case, write using comments engine
-		YamlComments.writeComments(this.defaultsPath, this.file, this.getUncommentedSections());
+		return YamlComments.writeComments(this.defaultsPath, this.file, this.getUncommentedSections());
+	}
 
-		return null;
+	/*
+	 * Copies the header and values to save on the calling thread, returning a function that dumps
+	 * them on any thread, or null if we save using the comments engine
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	final Supplier<String> snapshot() {
+		if (this.defaults != null && this.saveComments())
+			return null;
+
+		String header = "";
+
+		if (this.getHeader() != null) {
+			for (final String line : this.getHeader())
+				header += "# " + line + "\n";
+
+			header += "\n";
+		}
+
+		final Map<String, Object> values = this.section.getValues(false);
+
+		if (!this.saveEmptyValues)
+			removeEmptyValues(values);
+
+		final String finalHeader = header;
+		final Map<String, Object> copy = (Map<String, Object>) copyValue(values);
+
+		return () -> {
+			String dump = snapshotDumpers.get().yaml.dump(copy);
+
+			// Blank config
+			if (dump.equals("{}\n"))
+				dump = "";
+
+			return finalHeader + dump;
+		};
+	}
+
+	/*
+	 * Deep copy the given value into plain maps and lists, representing sections and
+	 * serializable objects the same way our YamlRepresenter would
+	 */
+	private static Object copyValue(Object value) {
+		if (value instanceof ConfigSection)
+			return copyValue(((ConfigSection) value).getValues(false));
+
+		if (value instanceof ConfigurationSerializable) {
+			final ConfigurationSerializable serializable = (ConfigurationSerializable) value;
+			final Map<String, Object> values = new LinkedHashMap<>();
+
+			values.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, ConfigurationSerialization.getAlias(serializable.getClass()));
+
+			for (final Map.Entry<String, Object> entry : serializable.serialize().entrySet())
+				values.put(entry.getKey(), copyValue(entry.getValue()));
+
+			return values;
+		}
+
+		if (value instanceof Map) {
+			final Map<Object, Object> copy = new LinkedHashMap<>();
+
+			for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+				copy.put(entry.getKey(), copyValue(entry.getValue()));
+
+			return copy;
+		}
+
+		if (value instanceof List) {
+			final List<Object> copy = new ArrayList<>();
+
+			for (final Object element : (List<?>) value)
+				copy.add(copyValue(element));
+
+			return copy;
+		}
+
+		if (value instanceof Set) {
+			final Set<Object> copy = new LinkedHashSet<>();
+
+			for (final Object element : (Set<?>) value)
+				copy.add(copyValue(element));
+
+			return copy;
+		}
+
+		if (value instanceof Object[])
+			return ((Object[]) value).clone();
+
+		return value;
 	}
 
 	/*
@@ -262,10 +381,16 @@ public class YamlConfig extends FileConfig {
 			final Object value = entry.getValue();
 
 			if (value instanceof ConfigSection) {
-				final Map<String, Object> childMap = ((ConfigSection) value).map;
+				final ConfigSection childSection = (ConfigSection) value;
+				final Map<String, Object> childMap = childSection.map;
+				final int sizeBefore = childMap.size();
 
 				removeEmptyValues(childMap);
 
+				// We changed the section directly
+				if (childMap.size() != sizeBefore)
+					childSection.invalidateIndex();
+
 				if (childMap.isEmpty())
 					it.remove();
 			}
@@ -287,7 +412,16 @@ public class YamlConfig extends FileConfig {
 	 */
 	@Override
 	final void loadFromString(@NonNull String contents) {
+		this.loadFromParsed(this.parseContents(contents));
+	}
 
+	/*
+	 * Parses the given string contents into raw values and header without changing
+	 * this configuration, so it can run off the main thread on a separate instance.
+	 * Serialized objects are left as raw maps and deserialized in loadFromParsed.
+	 */
+	@Override
+	final Tuple<Map<?, ?>, String> parseContents(@NonNull String contents) {
 		Map<?, ?> input;
 
 		try {
@@ -300,12 +434,24 @@ public class YamlConfig extends FileConfig {
 			throw new IllegalArgumentException("Top level is not a Map.");
 		}
 
-		final String header = this.parseHeader(contents);
+		return new Tuple<>(input, this.parseHeader(contents));
+	}
+
+	/*
+	 * Loads configuration from contents parsed by parseContents, deserializing objects
+	 * on the calling thread since they may use the Bukkit API
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	final void loadFromParsed(@NonNull Object parsed) {
+		final Tuple<Map<?, ?>, String> tuple = (Tuple<Map<?, ?>, String>) parsed;
+		final Map<?, ?> input = tuple.getKey();
+		final String header = tuple.getValue();
 
 		if (header.trim().length() > 0)
 			this.setHeader(header);
 
-		this.section.map.clear();
+		this.section.clear();
 
 		if (input != null)
 			this.convertMapsToSections(input, this.section);
@@ -319,13 +465,51 @@ public class YamlConfig extends FileConfig {
 			final String key = entry.getKey().toString();
 			final Object value = entry.getValue();
 
-			if (value instanceof Map)
+			if (value instanceof Map && !((Map<?, ?>) value).containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY))
 				this.convertMapsToSections((Map<?, ?>) value, section.createSection(key));
 			else
-				section.store(key, value);
+				section.store(key, deserializeObjects(value));
 		}
 	}
 
+	/*
+	 * Deserializes maps with the serialized type key in the given value and its lists and maps,
+	 * inner objects first same as Bukkit does. Lists and maps parsed by Yaml are updated in place.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Object deserializeObjects(Object value) {
+		if (value instanceof List) {
+			for (final ListIterator<Object> it = ((List<Object>) value).listIterator(); it.hasNext();)
+				it.set(deserializeObjects(it.next()));
+
+			return value;
+		}
+
+		if (value instanceof Map) {
+			final Map<Object, Object> map = (Map<Object, Object>) value;
+
+			for (final Map.Entry<Object, Object> entry : map.entrySet())
+				entry.setValue(deserializeObjects(entry.getValue()));
+
+			if (!map.containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY))
+				return map;
+
+			final Map<String, Object> typed = new LinkedHashMap<>(map.size());
+
+			for (final Map.Entry<Object, Object> entry : map.entrySet())
+				typed.put(entry.getKey().toString(), entry.getValue());
+
+			try {
+				return ConfigurationSerialization.deserializeObject(typed);
+
+			} catch (final IllegalArgumentException ex) {
+				throw new YAMLException("Could not deserialize object", ex);
+			}
+		}
+
+		return value;
+	}
+
 	/*
 	 * Converts the given input to header
 	 */
@@ -466,6 +650,9 @@ public class YamlConfig extends FileConfig {
 
 	/**
 	 * Helper class, credits to the original Bukkit/Spigot team, enhanced by MineAcademy
+	 *
+	 * Serialized objects are kept as raw maps so that parsing never touches the Bukkit API
+	 * and can run on any thread, see {@link YamlConfig#loadFromParsed(Object)}
 	 */
 	private final static class YamlConstructor extends SafeConstructor {
 
@@ -488,21 +675,7 @@ public class YamlConfig extends FileConfig {
 				if (node.isTwoStepsConstruction())
 					throw new YAMLException("Unexpected referential mapping structure. Node: " + node);
 
-				final Map<?, ?> raw = (Map<?, ?>) super.construct(node);
-
-				if (raw.containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
-					final Map<String, Object> typed = new LinkedHashMap<>(raw.size());
-					for (final Map.Entry<?, ?> entry : raw.entrySet())
-						typed.put(entry.getKey().toString(), entry.getValue());
-
-					try {
-						return ConfigurationSerialization.deserializeObject(typed);
-					} catch (final IllegalArgumentException ex) {
-						throw new YAMLException("Could not deserialize object", ex);
-					}
-				}
-
-				return raw;
+				return super.construct(node);
 			}
 
 			@Override